@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal microbenchmark harness measuring the average time of an operation, in the spirit of
+ * JMH's average-time mode: timed warmup iterations let the JIT compile the code, then every
+ * measurement iteration runs the operation in a loop for a fixed time and reports ns/op.
+ * Each operation returns an int which is folded into a sink, so its work cannot be optimized away.
+ *
+ * Results can be written as JSON in the layout of JMH's JSON output (benchmark, mode, params,
+ * primaryMetric with score, scoreError and rawData), so existing JMH charting tools can read it.
+ */
+public class BenchmarkRunner {
+    private final int warmupIterations;
+    private final long warmupNanos;
+    private final int measurementIterations;
+    private final long measurementNanos;
+    private final Pattern filter; // Benchmarks whose name does not match are skipped
+    private final List<Result> results = new ArrayList<>();
+
+    private int sink; // Folds every operation's result in, read once at the end
+
+    /**
+     * Creates a runner.
+     *
+     * @param warmupIterations      Number of warmup iterations.
+     * @param warmupMillis          Duration of a warmup iteration.
+     * @param measurementIterations Number of measured iterations.
+     * @param measurementMillis     Duration of a measured iteration.
+     * @param filter                Regular expression selecting benchmarks by name.
+     */
+    public BenchmarkRunner(int warmupIterations, long warmupMillis, int measurementIterations,
+            long measurementMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.warmupNanos = warmupMillis * 1_000_000L;
+        this.measurementIterations = measurementIterations;
+        this.measurementNanos = measurementMillis * 1_000_000L;
+        this.filter = Pattern.compile(filter);
+    }
+
+    /**
+     * Measures an operation and prints its result.
+     *
+     * @param name      Benchmark name.
+     * @param params    Parameters of this run, such as the position (shown and exported).
+     * @param operation The operation to time, returning any value derived from its work.
+     */
+    public void run(String name, Map<String, String> params, IntSupplier operation) {
+        if (!filter.matcher(name).find())
+            return;
+        for (int i = 0; i < warmupIterations; i++)
+            iteration(operation, warmupNanos);
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++)
+            scores[i] = iteration(operation, measurementNanos);
+
+        Result result = new Result(name, params, scores);
+        results.add(result);
+        System.out.printf("%-18s %-36s %12.1f +- %9.1f ns/op%n", name, params, result.score, result.error);
+    }
+
+    // Runs the operation for about the given time and returns the average ns per call
+    private double iteration(IntSupplier operation, long nanos) {
+        long operations = 0;
+        int batch = 1;
+        long begin = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < batch; i++)
+                sink += operation.getAsInt();
+            operations += batch;
+            elapsed = System.nanoTime() - begin;
+            // Grows the batch so the clock is read rarely compared to fast operations
+            if (batch < 1 << 20 && elapsed < nanos / 16)
+                batch <<= 1;
+        } while (elapsed < nanos);
+        return (double) elapsed / operations;
+    }
+
+    /**
+     * Writes every result as JMH-style JSON.
+     *
+     * @param filename The JSON file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeJson(String filename) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(filename)))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                writer.println("    {");
+                writer.printf("        \"benchmark\" : \"%s\",%n", escape(result.name));
+                writer.println("        \"mode\" : \"avgt\",");
+                writer.printf("        \"warmupIterations\" : %d,%n", warmupIterations);
+                writer.printf("        \"measurementIterations\" : %d,%n", measurementIterations);
+                writer.println("        \"params\" : {");
+                int p = 0;
+                for (Map.Entry<String, String> param : result.params.entrySet()) {
+                    writer.printf("            \"%s\" : \"%s\"%s%n", escape(param.getKey()), escape(param.getValue()),
+                            ++p < result.params.size() ? "," : "");
+                }
+                writer.println("        },");
+                writer.println("        \"primaryMetric\" : {");
+                writer.printf("            \"score\" : %s,%n", result.score);
+                writer.printf("            \"scoreError\" : %s,%n", result.error);
+                writer.println("            \"scoreUnit\" : \"ns/op\",");
+                StringBuilder raw = new StringBuilder();
+                for (int s = 0; s < result.scores.length; s++)
+                    raw.append(s == 0 ? "" : ", ").append(result.scores[s]);
+                writer.printf("            \"rawData\" : [ [ %s ] ]%n", raw);
+                writer.println("        }");
+                writer.println(i + 1 < results.size() ? "    }," : "    }");
+            }
+            writer.println("]");
+        }
+    }
+
+    // Returns the value accumulated from every operation, printing it keeps it alive
+    public int getSink() {
+        return sink;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    // Score of one benchmark: mean ns/op and the half-width of its 99.9% confidence interval
+    private static class Result {
+        final String name;
+        final Map<String, String> params;
+        final double[] scores;
+        final double score;
+        final double error;
+
+        Result(String name, Map<String, String> params, double[] scores) {
+            this.name = name;
+            this.params = params;
+            this.scores = scores;
+            double sum = 0;
+            for (double s : scores)
+                sum += s;
+            score = sum / scores.length;
+            double squares = 0;
+            for (double s : scores)
+                squares += (s - score) * (s - score);
+            double deviation = scores.length > 1 ? Math.sqrt(squares / (scores.length - 1)) : 0;
+            error = studentT999(scores.length - 1) * deviation / Math.sqrt(scores.length);
+        }
+
+        // Two-sided 99.9% quantile of Student's t distribution, as JMH reports
+        private static double studentT999(int degreesOfFreedom) {
+            double[] table = { Double.NaN, 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59 };
+            if (degreesOfFreedom <= 0)
+                return 0;
+            return degreesOfFreedom < table.length ? table[degreesOfFreedom] : 3.29;
+        }
+    }
+}
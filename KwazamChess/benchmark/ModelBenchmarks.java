@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of the model hot paths, each on three positions: the opening, the shipped
+ * savegame.txt and a crowded midgame (24 plies in, no piece captured yet).
+ *
+ * Build and run from this directory, against the compiled game classes:
+ *   javac -d ../out ../code/*.java && javac -cp ../out -d out *.java
+ *   java -cp ../out:out ModelBenchmarks [results.json or -] [name filter regex] [savegame path]
+ *
+ * Benchmarks:
+ * - validMoves: Piece.setCurrentValidMoves over every piece of one type
+ * - updateBoard: ChessBoard.updateBoard and undoMove of one legal move, cycling through the
+ *   position's moves (selecting the piece, which also computes its moves, is included)
+ * - switchTorXor: ChessModel.switchTorXor
+ * - determineWinner: ChessModel.determineWinner
+ * - saveLoadText / saveLoadBinary: saveGame or saveBinaryGame followed by loadGame, on a temp file
+ * - binarySnapshot: ChessModel.toBinary followed by loadBinaryGame, in memory
+ */
+public class ModelBenchmarks {
+    private static final String[] POSITIONS = { "opening", "savegame", "midgame" };
+    private static final int MIDGAME_PLIES = 24;
+
+    private final String savegamePath;
+
+    public ModelBenchmarks(String savegamePath) {
+        this.savegamePath = savegamePath;
+    }
+
+    // Creates a fresh model on a named position
+    private ChessModel createPosition(String name) {
+        ChessModel model = new ChessModel();
+        switch (name) {
+            case "savegame":
+                if (!model.loadGame(savegamePath))
+                    throw new IllegalStateException("Cannot load " + savegamePath);
+                break;
+            case "midgame":
+                // Quiet random moves with a fixed seed develop every piece without trading any
+                GameEngine engine = new GameEngine(model);
+                SplittableRandom random = new SplittableRandom(18);
+                int[] moves = new int[Move.MAX_MOVES];
+                for (int ply = 0; ply < MIDGAME_PLIES; ply++) {
+                    int count = engine.legalMoves(moves);
+                    int quiet = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (!Move.isCapture(moves[i]))
+                            moves[quiet++] = moves[i];
+                    }
+                    engine.play(moves[random.nextInt(quiet)]);
+                }
+                break;
+            default:
+                break;
+        }
+        return model;
+    }
+
+    public void runAll(BenchmarkRunner runner) throws IOException {
+        for (String position : POSITIONS) {
+            for (int type = 0; type < BitBoard.PIECE_TYPES; type++)
+                benchmarkValidMoves(runner, position, type);
+            benchmarkUpdateBoard(runner, position);
+
+            ChessModel switchModel = createPosition(position);
+            runner.run("switchTorXor", params(position), () -> Long.bitCount(switchModel.switchTorXor()));
+
+            ChessModel winnerModel = createPosition(position);
+            runner.run("determineWinner", params(position), () -> winnerModel.determineWinner() == null ? 0 : 1);
+
+            benchmarkSaveLoad(runner, position);
+        }
+    }
+
+    // Piece.setCurrentValidMoves over every piece of one type
+    private void benchmarkValidMoves(BenchmarkRunner runner, String position, int type) {
+        ChessModel model = createPosition(position);
+        Piece[][] board = model.getChessBoard().getBoard();
+        List<Piece> pieces = new ArrayList<>();
+        for (Piece[] row : board) {
+            for (Piece piece : row) {
+                if (piece != null && piece.getPieceType() == type)
+                    pieces.add(piece);
+            }
+        }
+        if (pieces.isEmpty())
+            return;
+        Piece[] selected = pieces.toArray(new Piece[0]);
+        Map<String, String> params = params(position);
+        params.put("piece", PieceType.fromCode(type).getName());
+        runner.run("validMoves", params, () -> {
+            int total = 0;
+            for (Piece piece : selected) {
+                piece.setCurrentValidMoves(board);
+                total += piece.getValidMoveCount();
+            }
+            return total;
+        });
+    }
+
+    // ChessBoard.updateBoard followed by undoMove, so the position never changes
+    private void benchmarkUpdateBoard(BenchmarkRunner runner, String position) {
+        ChessModel model = createPosition(position);
+        ChessBoard chessBoard = model.getChessBoard();
+        Piece[][] board = chessBoard.getBoard();
+        int[] buffer = new int[Move.MAX_MOVES];
+        int count = chessBoard.generateMoves(model.getCurrentTurnTeam(), buffer);
+
+        // Ram turn-arounds change the Ram's direction, which undoMove leaves to ChessModel
+        int[] moves = new int[count];
+        int moveCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (!Move.hasFlag(buffer[i], Move.FLAG_RAM_TURN))
+                moves[moveCount++] = buffer[i];
+        }
+        int usable = moveCount;
+        int[] next = { 0 };
+        runner.run("updateBoard", params(position), () -> {
+            int move = moves[next[0]];
+            next[0] = next[0] + 1 == usable ? 0 : next[0] + 1;
+            int from = Move.getFrom(move);
+            int to = Move.getTo(move);
+            Piece captured = board[Position.of(to).getRow()][Position.of(to).getColumn()];
+            chessBoard.setSelectedPiece(board[Position.of(from).getRow()][Position.of(from).getColumn()]);
+            chessBoard.updateBoard(to);
+            chessBoard.undoMove(from, to, captured);
+            return chessBoard.getPieceCount();
+        });
+    }
+
+    // Save and load round trips through both file formats and in memory
+    private void benchmarkSaveLoad(BenchmarkRunner runner, String position) throws IOException {
+        ChessModel model = createPosition(position);
+        File textFile = File.createTempFile("kwazam-benchmark", ".txt");
+        File binaryFile = File.createTempFile("kwazam-benchmark", ".kwz");
+        textFile.deleteOnExit();
+        binaryFile.deleteOnExit();
+
+        runner.run("saveLoadText", params(position), () -> {
+            model.saveGame(textFile.getPath());
+            return model.loadGame(textFile.getPath()) ? model.getChessBoard().getPieceCount() : -1;
+        });
+        runner.run("saveLoadBinary", params(position), () -> {
+            model.saveBinaryGame(binaryFile.getPath());
+            return model.loadGame(binaryFile.getPath()) ? model.getChessBoard().getPieceCount() : -1;
+        });
+        runner.run("binarySnapshot", params(position), () -> {
+            byte[] snapshot = model.toBinary();
+            return model.loadBinaryGame(snapshot) ? snapshot.length : -1;
+        });
+    }
+
+    private static Map<String, String> params(String position) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("position", position);
+        return params;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String jsonFile = args.length > 0 && !args[0].equals("-") ? args[0] : null;
+        String filter = args.length > 1 ? args[1] : ".*";
+        String savegamePath = args.length > 2 ? args[2] : "../code/savegame.txt";
+
+        BenchmarkRunner runner = new BenchmarkRunner(5, 200, 5, 500, filter);
+        new ModelBenchmarks(savegamePath).runAll(runner);
+        if (jsonFile != null) {
+            runner.writeJson(jsonFile);
+            System.out.println("Results written to " + jsonFile);
+        }
+        System.out.println("(sink " + runner.getSink() + ")");
+    }
+}
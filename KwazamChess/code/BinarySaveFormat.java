@@ -0,0 +1,255 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary save format, an alternative to the text format of ChessModel.saveGame.
+ * A game takes 33 bytes plus two or three bytes per move instead of about 1 KB, and is read
+ * without any string parsing.
+ *
+ * Layout (version 2):
+ * - 4 bytes: magic "KWZB", used by ChessModel.loadGame to tell the formats apart
+ * - 1 byte: format version
+ * - 1 byte: bit 0 set if Red is to move, bits 1-2 the round counter
+ * - 20 bytes: the 40 squares in Position index order, two per byte (even square in the high nibble).
+ * A nibble is 0 for an empty square, otherwise bit 3 is the team (set for Red) and bits 0-2
+ * the piece type code + 1
+ * - one bit per Ram in square order, least significant bit first, set if the Ram moves towards
+ * the last row ("+")
+ * - varint: number of moves, then one varint per move record (see Move, without FLAG_RAM_TURN,
+ * which follows from the destination). Version 1 stored only the destination Position index.
+ * - 4 bytes: CRC32 of everything before it, big-endian
+ *
+ * Ram icons are not stored: a Ram's icons are swapped exactly when it has turned around,
+ * which is when its direction differs from its team's starting direction.
+ */
+public final class BinarySaveFormat {
+    public static final int VERSION = 2;
+
+    // Oldest version that can still be read
+    private static final int DESTINATION_ONLY_VERSION = 1;
+
+    private static final byte[] MAGIC = { 'K', 'W', 'Z', 'B' };
+    private static final int HEADER_SIZE = MAGIC.length + 2;
+    private static final int CRC_SIZE = 4;
+    private static final int RED_TO_MOVE = 1;
+    private static final int ROUND_SHIFT = 1;
+    private static final int TEAM_BIT = 8;
+
+    private BinarySaveFormat() {
+    }
+
+    /**
+     * Checks whether a file starts like a binary save.
+     *
+     * @param data The file content.
+     * @return True if the data begins with the binary magic.
+     */
+    public static boolean isBinary(byte[] data) {
+        if (data.length < MAGIC.length)
+            return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a game.
+     *
+     * @param board    The board to save.
+     * @param turnTeam The team to move.
+     * @param round    The round counter.
+     * @param moves    The move history.
+     * @return The encoded game.
+     */
+    public static byte[] encode(Piece[][] board, Team turnTeam, int round, MoveHistory moves) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        out.write((turnTeam == Team.RED ? RED_TO_MOVE : 0) | (round << ROUND_SHIFT));
+
+        // Board nibbles
+        for (int square = 0; square < BitBoard.SQUARES; square += 2)
+            out.write(encodeSquare(board, square) << 4 | encodeSquare(board, square + 1));
+
+        // Ram directions
+        int ramCount = 0;
+        byte[] ramBytes = new byte[(BitBoard.SQUARES + 7) / 8];
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            Position position = Position.of(square);
+            Piece piece = board[position.getRow()][position.getColumn()];
+            if (piece instanceof Ram) {
+                if (((Ram) piece).getNextPosOperator().equals("+"))
+                    ramBytes[ramCount / 8] |= 1 << (ramCount & 7);
+                ramCount++;
+            }
+        }
+        out.write(ramBytes, 0, (ramCount + 7) / 8);
+
+        writeVarint(out, moves.size());
+        for (int i = 0; i < moves.size(); i++)
+            writeVarint(out, moves.get(i) & ~Move.FLAG_RAM_TURN);
+
+        CRC32 crc = new CRC32();
+        crc.update(out.toByteArray());
+        long checksum = crc.getValue();
+        for (int shift = 24; shift >= 0; shift -= 8)
+            out.write((int) (checksum >>> shift));
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks the CRC32 at the end of a binary save.
+     *
+     * @param data The encoded game.
+     * @return True if the data starts with the binary magic and its checksum matches.
+     */
+    public static boolean hasValidChecksum(byte[] data) {
+        if (!isBinary(data) || data.length < MAGIC.length + CRC_SIZE)
+            return false;
+        int end = data.length - CRC_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, end);
+        long checksum = 0;
+        for (int i = end; i < data.length; i++)
+            checksum = checksum << 8 | (data[i] & 0xFF);
+        return crc.getValue() == checksum;
+    }
+
+    /**
+     * Decodes a game into a model, replacing its current game.
+     *
+     * @param data  The encoded game.
+     * @param model The model receiving the game.
+     * @throws IOException If the data is not a valid binary save.
+     */
+    public static void decode(byte[] data, ChessModel model) throws IOException {
+        if (!isBinary(data) || data.length < HEADER_SIZE + BitBoard.SQUARES / 2 + 1 + CRC_SIZE)
+            throw new IOException("Not a binary save");
+        int version = data[MAGIC.length] & 0xFF;
+        if (version < DESTINATION_ONLY_VERSION || version > VERSION)
+            throw new IOException("Unsupported binary save version: " + version);
+
+        if (!hasValidChecksum(data))
+            throw new IOException("Binary save is corrupted (CRC mismatch)");
+        int end = data.length - CRC_SIZE;
+
+        int flags = data[MAGIC.length + 1] & 0xFF;
+        Team turnTeam = (flags & RED_TO_MOVE) != 0 ? Team.RED : Team.BLUE;
+        int round = flags >>> ROUND_SHIFT;
+        if (round > 2)
+            throw new IOException("Invalid round in binary save: " + round);
+
+        // Board
+        ChessBoard chessBoard = model.getChessBoard();
+        Piece[][] board = new Piece[ChessBoard.ROWS][ChessBoard.COLUMNS];
+        List<Ram> rams = new ArrayList<>();
+        int offset = HEADER_SIZE;
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            int nibble = (data[offset + square / 2] >>> ((square & 1) == 0 ? 4 : 0)) & 0xF;
+            if (nibble == 0)
+                continue;
+            int type = (nibble & (TEAM_BIT - 1)) - 1;
+            if (type < 0 || type >= BitBoard.PIECE_TYPES)
+                throw new IOException("Invalid piece in binary save: " + nibble);
+            Team team = (nibble & TEAM_BIT) != 0 ? Team.RED : Team.BLUE;
+            Position position = Position.of(square);
+            Piece piece = chessBoard.createPiece(PieceType.fromCode(type), position, team, turnTeam);
+            if (piece instanceof Ram)
+                rams.add((Ram) piece);
+            board[position.getRow()][position.getColumn()] = piece;
+        }
+        offset += BitBoard.SQUARES / 2;
+
+        // Ram directions and icons
+        if (offset + (rams.size() + 7) / 8 > end)
+            throw new IOException("Binary save is truncated");
+        for (int i = 0; i < rams.size(); i++)
+            setRamDirection(rams.get(i), (data[offset + i / 8] & (1 << (i & 7))) != 0);
+        offset += (rams.size() + 7) / 8;
+
+        // Moves
+        int[] cursor = { offset };
+        int moveCount = readVarint(data, cursor, end);
+        if (moveCount > end - cursor[0])
+            throw new IOException("Binary save is truncated"); // Every move takes at least a byte
+        int[] moves = new int[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            int move = readVarint(data, cursor, end);
+            if (version == DESTINATION_ONLY_VERSION)
+                move = Move.destinationOnly(move);
+            moves[i] = validateMove(move);
+        }
+        if (cursor[0] != end)
+            throw new IOException("Unexpected data at the end of the binary save");
+
+        model.restoreGame(board, turnTeam, round, moves);
+    }
+
+    // Checks a decoded move record and puts back its Ram turn flag
+    private static int validateMove(int move) throws IOException {
+        int to = Move.getTo(move);
+        if (move < 0 || move >= Move.FLAG_DESTINATION_ONLY << 1 || to >= BitBoard.SQUARES
+                || Move.getFrom(move) >= BitBoard.SQUARES || Move.getPieceType(move) >= BitBoard.PIECE_TYPES)
+            throw new IOException("Invalid move in binary save: " + move);
+        int row = Position.of(to).getRow();
+        if (!Move.hasFlag(move, Move.FLAG_DESTINATION_ONLY) && Move.getPieceType(move) == BitBoard.RAM
+                && (row == 0 || row == ChessBoard.ROWS - 1))
+            move |= Move.FLAG_RAM_TURN;
+        return move;
+    }
+
+    // Returns the nibble of a square
+    private static int encodeSquare(Piece[][] board, int square) {
+        Position position = Position.of(square);
+        Piece piece = board[position.getRow()][position.getColumn()];
+        if (piece == null)
+            return 0;
+        return (piece.getTeam() == Team.RED ? TEAM_BIT : 0) | (piece.getPieceType() + 1);
+    }
+
+    // Sets a loaded Ram's direction, and its icons to match
+    private static void setRamDirection(Ram ram, boolean forward) {
+        Team team = ram.getTeam();
+        String operator = forward ? "+" : "-";
+        String initialIconPath = "src/" + team.getName() + "_Ram.png";
+        String flipIconPath = "src/" + team.getName() + "_Ram_Rotated.png";
+        // Red starts moving "+", Blue "-": a Ram heading the other way has turned around once
+        if (forward != (team == Team.RED)) {
+            String temp = initialIconPath;
+            initialIconPath = flipIconPath;
+            flipIconPath = temp;
+        }
+        ram.setNextPosOperator(operator);
+        ram.setInitialIconPath(initialIconPath);
+        ram.setFlipIconPath(flipIconPath);
+        ram.setIconPath(initialIconPath); // ChessBoard.flipBoard picks the icon for the side to move
+    }
+
+    // Writes an unsigned LEB128 varint
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // Reads an unsigned LEB128 varint at cursor[0] and advances the cursor
+    private static int readVarint(byte[] data, int[] cursor, int end) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (cursor[0] >= end)
+                throw new IOException("Binary save is truncated");
+            int b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Invalid varint in binary save");
+    }
+}
@@ -0,0 +1,411 @@
+/**
+ * Bitboard representation of the Kwazam board.
+ * The board has ROWS * COLUMNS = 40 squares, so any set of squares fits in a single long.
+ * Bit (row * COLUMNS + column) stands for the square at that row and column, which is the
+ * same index used by Position and by the view's action commands.
+ *
+ * The position is stored as one occupancy board per team plus one board per piece type;
+ * the attack tables for Biz, Sau and Ram and the ray tables for Tor and Xor come from MoveTables.
+ */
+public class BitBoard {
+    // Number of squares on the board and a mask covering all of them
+    public static final int SQUARES = ChessBoard.ROWS * ChessBoard.COLUMNS;
+    public static final long ALL_SQUARES = (1L << SQUARES) - 1;
+
+    // Team codes
+    public static final int BLUE = 0;
+    public static final int RED = 1;
+
+    // Piece type codes
+    public static final int RAM = 0;
+    public static final int BIZ = 1;
+    public static final int TOR = 2;
+    public static final int XOR = 3;
+    public static final int SAU = 4;
+    public static final int PIECE_TYPES = 5;
+
+    // Returned when a square holds no piece
+    public static final int NONE = -1;
+
+    // Ray directions: the first four are orthogonal (Tor), the last four diagonal (Xor)
+    public static final int DOWN = 0;
+    public static final int RIGHT = 1;
+    public static final int UP = 2;
+    public static final int LEFT = 3;
+    public static final int DOWN_RIGHT = 4;
+    public static final int DOWN_LEFT = 5;
+    public static final int UP_RIGHT = 6;
+    public static final int UP_LEFT = 7;
+    public static final int DIRECTIONS = 8;
+
+    // Fields of the undo info returned by makeMove
+    private static final long UNDO_RAM_FORWARD = 1L;
+    private static final int UNDO_ROUND_SHIFT = 1;
+    private static final long UNDO_TRANSFORMED = 1L << 3;
+    private static final long UNDO_CAPTURED_RAM_FORWARD = 1L << 4;
+    private static final int UNDO_CAPTURE_SHIFT = 5;
+
+    private final long[] teams = new long[2]; // Occupancy of each team
+    private final long[] pieces = new long[PIECE_TYPES]; // Occupancy of each piece type
+    private long ramForward; // Rams heading towards the last row ("+" operator)
+    private int sideToMove = BLUE; // Team to play next, mirrors the model's PlayerState
+    private int round; // Red moves since the last Tor/Xor transformation, mirrors ChessModel.round
+    private long key; // Zobrist key of the position, updated with every change (see Zobrist)
+
+    // Removes every piece from the board
+    public void clear() {
+        teams[BLUE] = 0;
+        teams[RED] = 0;
+        for (int type = 0; type < PIECE_TYPES; type++)
+            pieces[type] = 0;
+        ramForward = 0;
+        key = Zobrist.side(sideToMove) ^ Zobrist.round(round);
+    }
+
+    // Copies the whole position from another bitboard
+    public void copyFrom(BitBoard other) {
+        teams[BLUE] = other.teams[BLUE];
+        teams[RED] = other.teams[RED];
+        System.arraycopy(other.pieces, 0, pieces, 0, PIECE_TYPES);
+        ramForward = other.ramForward;
+        sideToMove = other.sideToMove;
+        round = other.round;
+        key = other.key;
+    }
+
+    // Rebuilds the bitboards from the object board used by the view and the pieces
+    public void load(Piece[][] board) {
+        clear();
+        for (int row = 0; row < board.length; row++) {
+            for (int col = 0; col < board[row].length; col++) {
+                Piece piece = board[row][col];
+                if (piece == null)
+                    continue;
+                int square = row * ChessBoard.COLUMNS + col;
+                placePiece(square, piece.getTeam().getCode(), piece.getPieceType());
+                if (piece instanceof Ram)
+                    setRamForward(square, ((Ram) piece).getNextPosOperator().equals("+"));
+            }
+        }
+    }
+
+    // Puts a piece of the given team and type on an empty square
+    public void placePiece(int square, int team, int type) {
+        long mask = 1L << square;
+        teams[team] |= mask;
+        pieces[type] |= mask;
+        key ^= Zobrist.PIECES[team][type][square];
+    }
+
+    // Removes the piece on a square and returns its type (NONE if the square was empty)
+    public int removePiece(int square) {
+        int type = typeAt(square);
+        if (type != NONE) {
+            key ^= Zobrist.PIECES[teamAt(square)][type][square];
+            setRamForward(square, false);
+            long mask = ~(1L << square);
+            teams[BLUE] &= mask;
+            teams[RED] &= mask;
+            pieces[type] &= mask;
+        }
+        return type;
+    }
+
+    // Moves the piece on one square to another, capturing whatever stands there.
+    // A Ram reaching the first or last row turns around, like Ram.updateDirection.
+    // Returns the captured type (NONE if the destination was empty).
+    public int movePiece(int from, int to) {
+        int team = teamAt(from);
+        boolean forward = isRamForward(from);
+        int captured = removePiece(to);
+        int type = removePiece(from);
+        placePiece(to, team, type);
+        if (type == RAM) {
+            if (to < ChessBoard.COLUMNS)
+                forward = true;
+            else if (to >= SQUARES - ChessBoard.COLUMNS)
+                forward = false;
+            setRamForward(to, forward);
+        }
+        return captured;
+    }
+
+    // Plays a move following the game rules: moves the piece (turning Rams around at the edge),
+    // passes the turn, counts the round after Red's move and transforms Tor/Xor every two rounds,
+    // like RedState/BlueState.playMove followed by ChessModel.switchTorXor
+    public void playMove(int move) {
+        makeMove(move);
+    }
+
+    /**
+     * Plays a move like playMove and returns what unmakeMove needs to take it back.
+     *
+     * Undo info layout (least significant bit first):
+     * - bit 0: the moving piece was a Ram heading towards the last row
+     * - bits 1-2: round before the move
+     * - bit 3: the move triggered the Tor/Xor transformation
+     * - bit 4: the captured piece was a Ram heading towards the last row
+     * - bits 5-7: type of the captured piece, or Move.NO_CAPTURE
+     *
+     * @param move The packed move to play.
+     * @return The undo info to pass to unmakeMove.
+     */
+    public long makeMove(int move) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        long undo = (isRamForward(from) ? UNDO_RAM_FORWARD : 0)
+                | ((long) round << UNDO_ROUND_SHIFT)
+                | (isRamForward(to) ? UNDO_CAPTURED_RAM_FORWARD : 0);
+
+        int captured = movePiece(from, to);
+        undo |= (long) (captured == NONE ? Move.NO_CAPTURE : captured) << UNDO_CAPTURE_SHIFT;
+
+        if (sideToMove == RED)
+            setRound(round + 1);
+        setSideToMove(sideToMove ^ 1);
+        if (round == 2) {
+            swapTorXor();
+            setRound(0);
+            undo |= UNDO_TRANSFORMED;
+        }
+        return undo;
+    }
+
+    /**
+     * Takes back a move played with makeMove, restoring the captured piece, the Ram directions,
+     * the Tor/Xor state, the round counter, the side to move and the key.
+     *
+     * @param move The packed move that was played.
+     * @param undo The undo info returned by makeMove.
+     */
+    public void unmakeMove(int move, long undo) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+
+        // Transform back first so the moving piece has its type from before the move
+        if ((undo & UNDO_TRANSFORMED) != 0)
+            swapTorXor();
+        setSideToMove(sideToMove ^ 1);
+        setRound((int) (undo >>> UNDO_ROUND_SHIFT) & 0x3);
+
+        int type = removePiece(to);
+        placePiece(from, sideToMove, type);
+        if (type == RAM)
+            setRamForward(from, (undo & UNDO_RAM_FORWARD) != 0);
+
+        int captured = (int) (undo >>> UNDO_CAPTURE_SHIFT) & 0x7;
+        if (captured != Move.NO_CAPTURE) {
+            placePiece(to, sideToMove ^ 1, captured);
+            if (captured == RAM)
+                setRamForward(to, (undo & UNDO_CAPTURED_RAM_FORWARD) != 0);
+        }
+    }
+
+    // Returns true once a Sau has been captured
+    public boolean isGameOver() {
+        return (pieces[SAU] & teams[BLUE]) == 0 || (pieces[SAU] & teams[RED]) == 0;
+    }
+
+    // Swaps the Tor and Xor boards, which transforms every Tor into a Xor and vice versa
+    public void swapTorXor() {
+        // Every transforming piece changes type, so its key changes from one type to the other
+        for (int team = 0; team < 2; team++) {
+            long transforming = (pieces[TOR] | pieces[XOR]) & teams[team];
+            while (transforming != 0) {
+                int square = Long.numberOfTrailingZeros(transforming);
+                transforming &= transforming - 1;
+                key ^= Zobrist.PIECES[team][TOR][square] ^ Zobrist.PIECES[team][XOR][square];
+            }
+        }
+        long tor = pieces[TOR];
+        pieces[TOR] = pieces[XOR];
+        pieces[XOR] = tor;
+    }
+
+    // Returns the type of the piece on a square (NONE if empty)
+    public int typeAt(int square) {
+        long mask = 1L << square;
+        if (((teams[BLUE] | teams[RED]) & mask) == 0)
+            return NONE;
+        for (int type = 0; type < PIECE_TYPES; type++) {
+            if ((pieces[type] & mask) != 0)
+                return type;
+        }
+        return NONE;
+    }
+
+    // Returns the team of the piece on a square (NONE if empty)
+    public int teamAt(int square) {
+        long mask = 1L << square;
+        if ((teams[BLUE] & mask) != 0)
+            return BLUE;
+        return (teams[RED] & mask) != 0 ? RED : NONE;
+    }
+
+    // Returns every square a piece on the given square can move to, including captures
+    public long targets(int square) {
+        int team = teamAt(square);
+        if (team == NONE)
+            return 0;
+        long occupied = teams[BLUE] | teams[RED];
+        long attacks;
+        switch (typeAt(square)) {
+            case RAM:
+                attacks = ramStep(square, isRamForward(square));
+                break;
+            case BIZ:
+                attacks = MoveTables.BIZ_ATTACKS[square];
+                break;
+            case TOR:
+                attacks = orthogonalAttacks(square, occupied);
+                break;
+            case XOR:
+                attacks = diagonalAttacks(square, occupied);
+                break;
+            default:
+                attacks = MoveTables.SAU_ATTACKS[square];
+                break;
+        }
+        return attacks & ~teams[team];
+    }
+
+    // Returns every square the pieces of a team can move to, including captures
+    public long attacks(int team) {
+        long attacked = 0;
+        long own = teams[team];
+        while (own != 0) {
+            int from = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            attacked |= targets(from);
+        }
+        return attacked;
+    }
+
+    // Returns true if a piece of the other team can capture the team's Sau
+    public boolean isSauAttacked(int team) {
+        return (attacks(team ^ 1) & getPieces(team, SAU)) != 0;
+    }
+
+    // Writes the packed moves (see Move) of every piece of the team into the caller's buffer,
+    // starting at index count, and returns the new number of moves in the buffer
+    public int generateMoves(int team, int[] moves, int count) {
+        long own = teams[team];
+        while (own != 0) {
+            int from = Long.numberOfTrailingZeros(own);
+            own &= own - 1;
+            int type = typeAt(from);
+            long targets = targets(from);
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int captured = typeAt(to);
+                int flags = 0;
+                if (type == RAM && (MoveTables.END_ROWS & (1L << to)) != 0)
+                    flags = Move.FLAG_RAM_TURN;
+                moves[count++] = Move.encode(from, to, type, captured == NONE ? Move.NO_CAPTURE : captured, flags);
+            }
+        }
+        return count;
+    }
+
+    // Returns the squares a Tor on the given square attacks
+    public static long orthogonalAttacks(int square, long occupied) {
+        return rayAttacks(DOWN, square, occupied) | rayAttacks(RIGHT, square, occupied)
+                | rayAttacks(UP, square, occupied) | rayAttacks(LEFT, square, occupied);
+    }
+
+    // Returns the squares a Xor on the given square attacks
+    public static long diagonalAttacks(int square, long occupied) {
+        return rayAttacks(DOWN_RIGHT, square, occupied) | rayAttacks(DOWN_LEFT, square, occupied)
+                | rayAttacks(UP_RIGHT, square, occupied) | rayAttacks(UP_LEFT, square, occupied);
+    }
+
+    // Returns the squares along one ray up to and including the first blocker
+    public static long rayAttacks(int dir, int square, long occupied) {
+        long ray = MoveTables.RAY_MASKS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            // Rays going down or right grow the square index, the others shrink it
+            boolean increasing = dir == DOWN || dir == RIGHT || dir == DOWN_RIGHT || dir == DOWN_LEFT;
+            int blocker = increasing ? Long.numberOfTrailingZeros(blockers)
+                    : 63 - Long.numberOfLeadingZeros(blockers);
+            ray ^= MoveTables.RAY_MASKS[dir][blocker];
+        }
+        return ray;
+    }
+
+    // Returns the square in front of a Ram (as a one-bit board), or 0 past the edge
+    public static long ramStep(int square, boolean forward) {
+        return MoveTables.RAM_STEP_MASKS[forward ? MoveTables.RAM_FORWARD : MoveTables.RAM_BACKWARD][square];
+    }
+
+    // Returns true if the team still has its Sau on the board
+    public boolean hasSau(int team) {
+        return (pieces[SAU] & teams[team]) != 0;
+    }
+
+    // Returns the pieces of one type belonging to one team
+    public long getPieces(int team, int type) {
+        return pieces[type] & teams[team];
+    }
+
+    // Returns the occupancy of one piece type for both teams
+    public long getPieceBoard(int type) {
+        return pieces[type];
+    }
+
+    // Returns the occupancy of one team
+    public long getTeamBoard(int team) {
+        return teams[team];
+    }
+
+    // Returns every occupied square
+    public long getOccupancy() {
+        return teams[BLUE] | teams[RED];
+    }
+
+    // Returns the Rams heading towards the last row
+    public long getRamForwardBoard() {
+        return ramForward;
+    }
+
+    // Returns the team to play next
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    // Sets the team to play next
+    public void setSideToMove(int sideToMove) {
+        key ^= Zobrist.side(this.sideToMove) ^ Zobrist.side(sideToMove);
+        this.sideToMove = sideToMove;
+    }
+
+    // Returns the number of Red moves since the last Tor/Xor transformation
+    public int getRound() {
+        return round;
+    }
+
+    // Sets the number of Red moves since the last Tor/Xor transformation
+    public void setRound(int round) {
+        key ^= Zobrist.round(this.round) ^ Zobrist.round(round);
+        this.round = round;
+    }
+
+    // Returns the Zobrist key of the position
+    public long getKey() {
+        return key;
+    }
+
+    // Returns true if the Ram on the square moves towards the last row
+    public boolean isRamForward(int square) {
+        return (ramForward & (1L << square)) != 0;
+    }
+
+    // Sets the direction of the Ram on the square
+    public void setRamForward(int square, boolean forward) {
+        if (forward != isRamForward(square)) {
+            ramForward ^= 1L << square;
+            key ^= Zobrist.RAM_FORWARD[square];
+        }
+    }
+}
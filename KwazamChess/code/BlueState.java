@@ -13,7 +13,7 @@
  * Methods:
  * - playMove(ChessModel context, int position): Changes the state to RedState after a move is played,
  * updates the chess board, and tracks the round.
- * - getTeam(): Returns the team name "Blue".
+ * - getTeam(): Returns Team.BLUE.
  * 
  * Relationships:
  * - BlueState is a concrete implementation of the PlayerState interface.
@@ -37,7 +37,7 @@ public class BlueState implements PlayerState {
     // Override get team method
     // Ow Ka Sheng
     @Override
-    public String getTeam() {
-        return "Blue";
+    public Team getTeam() {
+        return Team.BLUE;
     }
 }
@@ -22,62 +22,115 @@ public class ChessBoard {
     // The currently selected piece for movement or interaction
     private Piece selectedPiece;
 
+    // Bitboard mirror of the board used for fast queries
+    private BitBoard bitBoard;
+
+    // Returned by getSauCaptureMove while both Saus are on the board
+    public static final int NO_SAU_CAPTURE = -1;
+
+    // Square of each team's Sau by team code (BitBoard.BLUE, BitBoard.RED), or BitBoard.NONE once captured
+    private final int[] sauSquares = { BitBoard.NONE, BitBoard.NONE };
+
+    // The packed move that captured a Sau, or NO_SAU_CAPTURE
+    private int sauCaptureMove = NO_SAU_CAPTURE;
+
+    // Tor/Xor phase shared by every Tor and Xor on this board
+    private final TorXorPhase torXorPhase = new TorXorPhase();
+
     // Constructor that initializes the board with pieces for both teams
     // Ow Ka Sheng
     public ChessBoard() {
         this.board = new Piece[ROWS][COLUMNS]; // Initializes the 2D array for the board
         this.pieceCount = 20; // Initially 20 pieces per team
         this.selectedPiece = null; // No piece selected initially
-        initialize(30, 39, 35, "Blue"); // Initialize the Blue team's pieces
-        initialize(5, 0, 4, "Red"); // Initialize the Red team's pieces
+        initialize(30, 39, 35, Team.BLUE); // Initialize the Blue team's pieces
+        initialize(5, 0, 4, Team.RED); // Initialize the Red team's pieces
+        this.bitBoard = new BitBoard();
+        bitBoard.load(board); // Mirror the starting position on the bitboard
+        locateSaus();
+    }
+
+    // Finds both Saus on the board, after the whole board was replaced
+    private void locateSaus() {
+        sauSquares[BitBoard.BLUE] = BitBoard.NONE;
+        sauSquares[BitBoard.RED] = BitBoard.NONE;
+        sauCaptureMove = NO_SAU_CAPTURE;
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            Position position = Position.of(square);
+            Piece piece = board[position.getRow()][position.getColumn()];
+            if (piece instanceof Sau)
+                sauSquares[piece.getTeam().getCode()] = square;
+        }
     }
 
     // Method to initialize pieces for a team at specified positions
     // Ow Ka Sheng
-    private void initialize(int RamStartingPos, int torPos, int xorPos, String team) {
+    private void initialize(int RamStartingPos, int torPos, int xorPos, Team team) {
         // Initializing Tor and Xor pieces at given positions
-        Position torPosition = new Position(torPos);
-        board[torPosition.getRow()][torPosition.getColumn()] = createPiece("Tor", torPosition, team, "");
+        Position torPosition = Position.of(torPos);
+        board[torPosition.getRow()][torPosition.getColumn()] =
+                createPiece(PieceType.TOR, torPosition, team, Team.BLUE);
 
-        Position xorPosition = new Position(xorPos);
-        board[xorPosition.getRow()][xorPosition.getColumn()] = createPiece("Xor", xorPosition, team, "");
+        Position xorPosition = Position.of(xorPos);
+        board[xorPosition.getRow()][xorPosition.getColumn()] =
+                createPiece(PieceType.XOR, xorPosition, team, Team.BLUE);
 
         // Calculate the other starting position and use it to place Sau and Biz pieces
         int otherStartingPos = Math.min(torPos, xorPos);
 
         int sauPos = otherStartingPos + 2;
-        Position sauPosition = new Position(sauPos);
-        board[sauPosition.getRow()][sauPosition.getColumn()] = createPiece("Sau", sauPosition, team, "");
+        Position sauPosition = Position.of(sauPos);
+        board[sauPosition.getRow()][sauPosition.getColumn()] =
+                createPiece(PieceType.SAU, sauPosition, team, Team.BLUE);
 
         int biz1Pos = otherStartingPos + 1;
-        Position biz1Position = new Position(biz1Pos);
-        board[biz1Position.getRow()][biz1Position.getColumn()] = createPiece("Biz", biz1Position, team, "");
+        Position biz1Position = Position.of(biz1Pos);
+        board[biz1Position.getRow()][biz1Position.getColumn()] =
+                createPiece(PieceType.BIZ, biz1Position, team, Team.BLUE);
 
         int biz2Pos = otherStartingPos + 3;
-        Position biz2Position = new Position(biz2Pos);
-        board[biz2Position.getRow()][biz2Position.getColumn()] = createPiece("Biz", biz2Position, team, "");
+        Position biz2Position = Position.of(biz2Pos);
+        board[biz2Position.getRow()][biz2Position.getColumn()] =
+                createPiece(PieceType.BIZ, biz2Position, team, Team.BLUE);
 
         // Initialize Ram pieces at consecutive positions
         for (int i = RamStartingPos; i < RamStartingPos + 5; i++) {
-            Position ramPosition = new Position(i);
-            board[ramPosition.getRow()][ramPosition.getColumn()] = createPiece("Ram", ramPosition, team, "");
+            Position ramPosition = Position.of(i);
+            board[ramPosition.getRow()][ramPosition.getColumn()] =
+                    createPiece(PieceType.RAM, ramPosition, team, Team.BLUE);
         }
     }
 
-    // Method to create a piece based on its type and position
+    // Method to create a piece based on its current type and position
+    // (the Sau's icon is rotated when the board is shown from Red's side)
     // Ow Ka Sheng
-    public Piece createPiece(String pieceType, Position position, String team, String currentTurn) {
+    public Piece createPiece(PieceType pieceType, Position position, Team team, Team currentTurn) {
         // Use switch-case to create different types of pieces (Tor, Xor, Sau, Biz, Ram)
         return switch (pieceType) {
-            case "Tor" -> new Tor(position, team);
-            case "Xor" -> new Xor(position, team);
-            case "Sau" -> new Sau(position, team, currentTurn.equals("Red"));
-            case "Biz" -> new Biz(position, team);
-            case "Ram" -> new Ram(position, team);
-            default -> null; // Return null if no matching piece type
+            // A Tor or Xor gets the class that has the requested type in the current phase
+            case TOR, XOR -> torXorPhase.currentType(pieceType.getCode()) == BitBoard.TOR
+                    ? new Tor(position, team, torXorPhase)
+                    : new Xor(position, team, torXorPhase);
+            case SAU -> new Sau(position, team, currentTurn == Team.RED);
+            case BIZ -> new Biz(position, team);
+            case RAM -> new Ram(position, team);
         };
     }
 
+    // Method to write the packed moves of every piece of a team into the caller's buffer
+    // Returns the number of moves written
+    public int generateMoves(Team team, int[] moves) {
+        return bitBoard.generateMoves(team.getCode(), moves, 0);
+    }
+
+    // Transforms every Tor into a Xor and vice versa, on the pieces and on the bitboard
+    // Returns the squares of the transformed pieces, one bit per square (see BitBoard)
+    public long switchTorXor() {
+        torXorPhase.toggle();
+        bitBoard.swapTorXor();
+        return bitBoard.getPieceBoard(BitBoard.TOR) | bitBoard.getPieceBoard(BitBoard.XOR);
+    }
+
     // Method to move the selected piece to a new position
     // Ow Ka Sheng
     public void moveSelectedPiece(int position) {
@@ -86,7 +139,7 @@ public class ChessBoard {
 
     // Method to flip the board based on the current team (for visual symmetry)
     // Ow Ka Sheng
-    public void flipBoard(String currentTeam) {
+    public void flipBoard(Team currentTeam) {
         for (int i = 0; i < ROWS; i++) {
             for (int j = 0; j < COLUMNS; j++) {
                 Piece flipPiece = board[i][j];
@@ -94,7 +147,7 @@ public class ChessBoard {
                     // If the piece implements IconPathProvider, change its icon based on the team
                     if (flipPiece instanceof IconPathProvider) {
                         IconPathProvider p = (IconPathProvider) flipPiece;
-                        if (currentTeam.equals("Red"))
+                        if (currentTeam == Team.RED)
                             flipPiece.setIconPath(p.getFlipIconPath());
                         else
                             flipPiece.setIconPath(p.getInitialIconPath());
@@ -123,6 +176,46 @@ public class ChessBoard {
         if (destPiece != null) // If a piece is replaced, decrement the piece count
             pieceCount--;
         board[prevRow][prevCol] = null; // Set the previous position to null (no piece left there)
+
+        // Mirror the move on the bitboard
+        int from = selecPosition.getIndex();
+        bitBoard.movePiece(from, nextMove);
+
+        // Keep track of the Saus
+        if (selectedPiece instanceof Sau)
+            sauSquares[selectedPiece.getTeam().getCode()] = nextMove;
+        if (destPiece instanceof Sau) {
+            sauSquares[destPiece.getTeam().getCode()] = BitBoard.NONE;
+            sauCaptureMove = Move.encode(from, nextMove, selectedPiece.getPieceType(), BitBoard.SAU, 0);
+        }
+    }
+
+    // Method to take back a move: puts the moved piece back on its previous position and
+    // the captured piece (or nothing) back on the destination
+    public void undoMove(int from, int to, Piece captured) {
+        Position fromPosition = Position.of(from);
+        Position toPosition = Position.of(to);
+        Piece piece = board[toPosition.getRow()][toPosition.getColumn()];
+        piece.setPosition(fromPosition);
+        board[fromPosition.getRow()][fromPosition.getColumn()] = piece;
+        board[toPosition.getRow()][toPosition.getColumn()] = captured;
+
+        // Mirror the change on the bitboard
+        bitBoard.movePiece(to, from);
+        if (piece instanceof Sau)
+            sauSquares[piece.getTeam().getCode()] = from;
+        if (captured instanceof Sau) {
+            sauSquares[captured.getTeam().getCode()] = to;
+            sauCaptureMove = NO_SAU_CAPTURE; // The game is no longer over
+        }
+        if (piece instanceof Ram)
+            bitBoard.setRamForward(from, ((Ram) piece).getNextPosOperator().equals("+"));
+        if (captured != null) {
+            pieceCount++; // The captured piece is back on the board
+            bitBoard.placePiece(to, captured.getTeam().getCode(), captured.getPieceType());
+            if (captured instanceof Ram)
+                bitBoard.setRamForward(to, ((Ram) captured).getNextPosOperator().equals("+"));
+        }
     }
 
     // Getters and setters for the board, piece count, and selected piece
@@ -131,6 +224,19 @@ public class ChessBoard {
         return board;
     }
 
+    public BitBoard getBitBoard() {
+        return bitBoard;
+    }
+
+    public TorXorPhase getTorXorPhase() {
+        return torXorPhase;
+    }
+
+    // Returns the Zobrist key of the current position, kept up to date by updateBoard
+    public long getZobristKey() {
+        return bitBoard.getKey();
+    }
+
     public int getPieceCount() {
         return pieceCount;
     }
@@ -141,6 +247,28 @@ public class ChessBoard {
 
     public void setBoard(Piece[][] board) {
         this.board = board;
+        bitBoard.load(board); // Keep the bitboard in sync with the new board
+        locateSaus();
+    }
+
+    // Returns the square of a team's Sau (by team code), or BitBoard.NONE once it was captured
+    public int getSauSquare(int team) {
+        return sauSquares[team];
+    }
+
+    // Returns true once the Sau of a team (by team code) was captured
+    public boolean isSauCaptured(int team) {
+        return sauSquares[team] == BitBoard.NONE;
+    }
+
+    // Returns the packed move that captured a Sau and ended the game, or NO_SAU_CAPTURE
+    public int getSauCaptureMove() {
+        return sauCaptureMove;
+    }
+
+    // Sets the move that captured a Sau, for a loaded game that already ended
+    public void setSauCaptureMove(int sauCaptureMove) {
+        this.sauCaptureMove = sauCaptureMove;
     }
 
     public void setPieceCount(int pieceCount) {
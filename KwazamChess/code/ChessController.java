@@ -2,8 +2,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
-
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.SplittableRandom;
 
 import javax.swing.*;
 import java.awt.event.MouseAdapter;
@@ -21,14 +21,27 @@ import java.awt.event.MouseEvent;
 
 public class ChessController {
 
+    // Resize events closer together than this are handled as one
+    private static final int RESIZE_DELAY_MILLIS = 80;
+
+    private GameEngine engine; // Plays the moves on the model, the controller is one of its clients
     private ChessModel model; // Chess game logic and data
     private ChessView view; // Chess game UI
+    private ParallelSearch searchEngine; // Search engine playing the computer opponent on every core
+    private OpeningBook openingBook; // Book moves the computer plays without searching, null if unavailable
+    private SplittableRandom bookRandom = new SplittableRandom(); // Varies the computer's book moves
+    private Team computerTeam; // Team played by the computer, or null when two humans play
+    private boolean isComputerThinking; // True while the computer searches for its move
+    private Timer resizeTimer; // Lays the view out once a burst of resize events is over
 
     // Ow Ka Sheng
-    public ChessController(ChessModel model) {
+    public ChessController(GameEngine engine) {
         // Initializes the model and view, setting up the view's chessboard
-        this.model = model;
+        this.engine = engine;
+        this.model = engine.getModel();
         this.view = new ChessView(model.getChessBoard().getBoard());
+        this.searchEngine = new ParallelSearch(Runtime.getRuntime().availableProcessors(), 64);
+        this.openingBook = loadOpeningBook();
 
         // Toggles the visibility of the pieces depending on the current team
         view.togglePlayerPieceState(model.getCurrentTurnTeam());
@@ -37,6 +50,8 @@ public class ChessController {
         view.getClearButton().addActionListener(new ClearAction());
         view.getSaveGameItem().addActionListener(new SaveGameAction());
         view.getLoadGameItem().addActionListener(new LoadGameAction());
+        view.getUndoItem().addActionListener(new UndoAction());
+        view.getRedoItem().addActionListener(new RedoAction());
         view.getNewGameItem().addActionListener(new RestartAction());
         view.getRestartGameItem().addActionListener(new RestartAction());
         view.getExitItem().addActionListener(e -> System.exit(0)); // Exits the application
@@ -44,14 +59,18 @@ public class ChessController {
         view.getDarkThemeItem().addActionListener(e -> view.changeTheme(false)); // Switches to dark theme
         view.getOnSoundItem().addActionListener(e -> view.setAudioEnabled(true)); // Turns audio on
         view.getOffSoundItem().addActionListener(e -> view.setAudioEnabled(false)); // Turns audio off
+        view.getHumanOpponentItem().addActionListener(e -> setComputerTeam(null)); // Two-player mode
+        view.getComputerOpponentItem().addActionListener(e -> setComputerTeam(Team.RED)); // Computer plays Red
         view.getRulesItem().addActionListener(e -> view.displayRules()); // Displays the game rules
         view.getAboutItem().addActionListener(e -> view.displayAbout()); // Displays about information
 
-        // Listens for window resize events to adjust the board view
+        // Listens for window resize events to adjust the board view, once the window stops changing
+        resizeTimer = new Timer(RESIZE_DELAY_MILLIS, e -> view.resizeWindow(model.getChessBoard().getBoard()));
+        resizeTimer.setRepeats(false);
         view.getLayeredPane().addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                view.resizeWindow(model.getChessBoard().getBoard());
+                resizeTimer.restart();
             }
         });
 
@@ -126,9 +145,10 @@ public class ChessController {
                 ChessBoard board = model.getChessBoard();
                 view.setUpChessBoard(board.getBoard()); // Sets up the chessboard
                 setUpCellActionListener(); // Sets up the action listeners for the board cells
+                view.clearMoves(); // The loaded moves replace every row of the move history view
                 view.refreshMoveHistory(model.getMoveHistory()); // Refreshes the move history view
-                String currentTeam = model.getCurrentTurnTeam();
-                boolean isBlueTurn = currentTeam.equals("Blue");
+                Team currentTeam = model.getCurrentTurnTeam();
+                boolean isBlueTurn = currentTeam == Team.BLUE;
 
                 // Flips the board view if the team is not blue
                 if (!isBlueTurn) {
@@ -145,88 +165,224 @@ public class ChessController {
                 view.togglePlayerPieceState(currentTeam);
                 board.setSelectedPiece(null); // Deselects any previously selected piece
                 view.displayLoadDialog("Success"); // Displays success message
+                playComputerMoveIfNeeded(); // Lets the computer answer if the loaded game is on its turn
             } else {
                 view.displayLoadDialog("Failed"); // Displays failure message
             }
         }
     }
 
+    private class UndoAction implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            undoMove(); // Takes back the last move
+        }
+    }
+
+    private class RedoAction implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            redoMove(); // Plays the last undone move again
+        }
+    }
+
     // Ow Ka Sheng
     public void handlePieceAction(ActionEvent e) {
+        // Ignores clicks while the computer is choosing its move
+        if (isComputerThinking)
+            return;
+
         JButton clickedBtn = (JButton) e.getSource();
-        String clickedTeam = (String) clickedBtn.getClientProperty("team");
+        Team clickedTeam = (Team) clickedBtn.getClientProperty("team");
         ChessBoard chessBoard = model.getChessBoard();
         Piece lastSelectedPiece = chessBoard.getSelectedPiece();
-        String currentTeam = model.getCurrentTurnTeam();
+        Team currentTeam = model.getCurrentTurnTeam();
 
         // Check if the clicked piece belongs to the current player or not
-        if (clickedTeam == null || (lastSelectedPiece != null && !clickedTeam.equals(currentTeam)))
+        if (clickedTeam == null || (lastSelectedPiece != null && clickedTeam != currentTeam))
             updateGame(e); // Updates the game state if the piece is valid for the current turn
         else {
-            // If a piece is selected, highlights its valid moves
-            ArrayList<int[]> validMoves = (lastSelectedPiece == null) ? new ArrayList<>()
-                    : lastSelectedPiece.getValidMoves();
-            view.setHighlightPath(validMoves, false);
+            // If a piece is selected, removes the highlights of its valid moves
+            if (lastSelectedPiece != null)
+                view.setHighlightPath(lastSelectedPiece.getValidMoves(), lastSelectedPiece.getValidMoveCount(), false);
             int piecePos = Integer.parseInt(e.getActionCommand());
-            int[] rowCol = Position.convertPositionToRowColumn(piecePos);
-            Piece piece = chessBoard.getBoard()[rowCol[0]][rowCol[1]];
+            Position position = Position.of(piecePos);
+            Piece piece = chessBoard.getBoard()[position.getRow()][position.getColumn()];
             chessBoard.setSelectedPiece(piece); // Sets the clicked piece as selected
             view.pieceSelectSound(); // Plays a sound for piece selection
-            view.setHighlightPath(chessBoard.getSelectedPiece().getValidMoves(), true); // Highlights the valid moves
-                                                                                        // for the selected piece
+            // Highlights the valid moves for the selected piece
+            Piece selectedPiece = chessBoard.getSelectedPiece();
+            view.setHighlightPath(selectedPiece.getValidMoves(), selectedPiece.getValidMoveCount(), true);
         }
     }
 
     // Ow Ka Sheng
     public void updateGame(ActionEvent e) {
+        updateGame(Integer.parseInt(e.getActionCommand()));
+    }
+
+    // Moves the selected piece to the given position and updates the view
+    public void updateGame(int position) {
         ChessBoard chessBoard = model.getChessBoard();
-        int prevPieceCount = chessBoard.getPieceCount();
-        int position = Integer.parseInt(e.getActionCommand());
         Piece piece = chessBoard.getSelectedPiece();
         Position piecePos = piece.getPosition();
         int prevRow = piecePos.getRow();
         int prevCol = piecePos.getColumn();
-        int[] rowCol = Position.convertPositionToRowColumn(position);
+        Position destination = Position.of(position);
 
         // Removes highlights of the previous valid moves
-        view.setHighlightPath(piece.getValidMoves(), false);
-
-        // Updates the board state and plays the move (State design pattern)
-        model.getPlayerState().playMove(model, position);
-        view.updateBoardView(prevRow, prevCol, rowCol[0], rowCol[1]);
+        view.setHighlightPath(piece.getValidMoves(), piece.getValidMoveCount(), false);
 
-        // Adds the move to the history and updates the move list view
-        model.addMoveToHistory(position);
-        view.refreshMoveHistory(model.getMoveHistory());
+        // Plays the move through the game engine (State design pattern, move history, Tor/Xor)
+        int move = engine.play(piecePos.getIndex(), position);
+        view.updateBoardView(prevRow, prevCol, destination.getRow(), destination.getColumn());
 
         // Plays sound based on whether a piece was taken or just moved
-        if (prevPieceCount > chessBoard.getPieceCount())
+        if (Move.isCapture(move))
             view.pieceTakenOutSound();
         else
             view.pieceMoveSound();
 
         // Switches between 'Tor' and 'Xor' view for every 2 rounds
-        if (model.getRound() == 2)
-            view.switchTorXorView(model.switchTorXor());
+        if (engine.getLastTransformedSquares() != 0)
+            view.switchTorXorView(engine.getLastTransformedSquares(), chessBoard.getBoard());
 
-        chessBoard.setSelectedPiece(null); // Deselects the piece after the move
+        // Updates the move list view once the move record is complete
+        view.refreshMoveHistory(model.getMoveHistory());
 
         // Checks if the game has ended after the move
         boolean isEnd = checkGameEnded();
         if (!isEnd) {
-            String currentTeam = model.getCurrentTurnTeam();
-            chessBoard.flipBoard(currentTeam); // Flips the board if needed
-            view.updateTurnIndicator(currentTeam); // Updates the turn indicator
-            view.flipBoardView(chessBoard.getBoard()); // Updates the board view
-            view.toggleBoardLabel(currentTeam); // Toggles the label indicating the current team
-            view.togglePlayerPieceState(currentTeam); // Updates the visible pieces for the current team
+            updateTurnView(); // Hands the board over to the next player
+            playComputerMoveIfNeeded(); // Lets the computer answer if it is its turn
+        }
+    }
+
+    // Flips the board and updates the labels and pieces for the team whose turn it is
+    private void updateTurnView() {
+        ChessBoard chessBoard = model.getChessBoard();
+        Team currentTeam = model.getCurrentTurnTeam();
+        chessBoard.flipBoard(currentTeam); // Flips the board if needed
+        view.updateTurnIndicator(currentTeam); // Updates the turn indicator
+        view.flipBoardView(chessBoard.getBoard()); // Updates the board view
+        view.toggleBoardLabel(currentTeam); // Toggles the label indicating the current team
+        view.togglePlayerPieceState(currentTeam); // Updates the visible pieces for the current team
+    }
+
+    // Takes back the last move, and the computer's reply before it when playing the computer
+    public void undoMove() {
+        if (isComputerThinking || !model.canUndo())
+            return;
+        clearSelection();
+        undoSingleMove();
+        // Keeps undoing until it is a human's turn again
+        if (computerTeam != null && computerTeam == model.getCurrentTurnTeam() && model.canUndo())
+            undoSingleMove();
+    }
+
+    // Takes back one move, updating only the cells it changed, and hands the board back to the
+    // player who made it (the view flips once per move, like when the move was played)
+    private void undoSingleMove() {
+        MoveDelta delta = engine.undo();
+        Position from = Position.of(delta.getFrom());
+        Position to = Position.of(delta.getTo());
+
+        // Moves the piece back and shows the captured piece again
+        view.updateBoardView(to.getRow(), to.getColumn(), from.getRow(), from.getColumn());
+        if (delta.getCaptured() != null)
+            view.setCellPiece(to.getRow(), to.getColumn(), delta.getCaptured());
+        if (delta.getTransformedSquares() != 0)
+            view.switchTorXorView(delta.getTransformedSquares(), model.getChessBoard().getBoard());
+        view.refreshMoveHistory(model.getMoveHistory());
+        view.pieceMoveSound();
+        updateTurnView();
+    }
+
+    // Plays the last undone move again, and the computer's reply after it when playing the computer
+    public void redoMove() {
+        MoveDelta redo = model.getRedoMove();
+        if (isComputerThinking || redo == null)
+            return;
+        clearSelection();
+        selectAndPlay(redo.getFrom(), redo.getTo());
+    }
+
+    // Deselects the selected piece and removes the highlights of its moves
+    private void clearSelection() {
+        ChessBoard chessBoard = model.getChessBoard();
+        Piece selectedPiece = chessBoard.getSelectedPiece();
+        if (selectedPiece != null)
+            view.setHighlightPath(selectedPiece.getValidMoves(), selectedPiece.getValidMoveCount(), false);
+        chessBoard.setSelectedPiece(null);
+    }
+
+    // Sets the team played by the computer (null for two-player mode)
+    public void setComputerTeam(Team team) {
+        this.computerTeam = team;
+        playComputerMoveIfNeeded();
+    }
+
+    // Searches the computer's move on a background thread if it is the computer's turn,
+    // then plays it on the EDT
+    private void playComputerMoveIfNeeded() {
+        if (computerTeam == null || isComputerThinking || computerTeam != model.getCurrentTurnTeam())
+            return;
+
+        // Replays the computer's undone reply instead of searching again
+        MoveDelta redo = model.getRedoMove();
+        if (redo != null) {
+            selectAndPlay(redo.getFrom(), redo.getTo());
+            return;
         }
+
+        isComputerThinking = true;
+        BitBoard position = new BitBoard();
+        position.copyFrom(model.getChessBoard().getBitBoard()); // The search works on its own copy
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                // Positions in the opening book are answered without searching
+                int move = openingBook == null ? SearchEngine.NO_MOVE : openingBook.chooseMove(position, bookRandom);
+                return move != SearchEngine.NO_MOVE ? move : searchEngine.findBestMove(position);
+            }
+
+            @Override
+            protected void done() {
+                isComputerThinking = false;
+                try {
+                    int move = get();
+                    // Drops the move if the game changed meanwhile (restart or load)
+                    if (move != SearchEngine.NO_MOVE && model.getChessBoard().getZobristKey() == position.getKey())
+                        selectAndPlay(Move.getFrom(move), Move.getTo(move));
+                } catch (Exception ex) {
+                    System.err.println("Error searching computer move: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    // Opens the opening book bundled with the game, or returns null without one (the computer then always searches)
+    private static OpeningBook loadOpeningBook() {
+        try {
+            return OpeningBook.openDefault();
+        } catch (IOException ex) {
+            System.err.println("Error loading opening book: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    // Plays the piece on one position to another as if the piece and destination were clicked
+    private void selectAndPlay(int from, int to) {
+        ChessBoard chessBoard = model.getChessBoard();
+        Position origin = Position.of(from);
+        chessBoard.setSelectedPiece(chessBoard.getBoard()[origin.getRow()][origin.getColumn()]);
+        updateGame(to);
     }
 
     // Ow Ka Sheng
     public boolean checkGameEnded() {
-        String winner = model.determineWinner(); // Determines the winner of the game
-        if (!winner.equals("None")) {
+        Team winner = engine.winner(); // Determines the winner of the game
+        if (winner != null) {
             view.displayWinner(winner); // Displays the winner
             restartGame(); // Restarts the game
             return true;
@@ -241,7 +397,7 @@ public class ChessController {
         ChessBoard chessBoard = model.getChessBoard();
         view.setUpChessBoard(chessBoard.getBoard()); // Sets up the new chessboard view
         view.setIsFlipped(false); // Resets the board flip state
-        String currentTeam = model.getCurrentTurnTeam();
+        Team currentTeam = model.getCurrentTurnTeam();
         view.toggleBoardLabel(currentTeam); // Toggles the board label for the current team
         setUpCellActionListener(); // Sets up listeners for the new game
         view.togglePlayerPieceState(currentTeam); // Toggles the pieces for the new team
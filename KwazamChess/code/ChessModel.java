@@ -1,11 +1,12 @@
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 // This class follows the MVC (Model-View-Controller) and state design pattern.
 // MVC:
@@ -24,7 +25,9 @@ public class ChessModel {
     private ChessBoard chessBoard; // Chess board object
     private PlayerState state; // Current game state (RedState or BlueState)
     private int round; // Round number
-    private ArrayList<String> moveHistory; // History of moves made during the game
+    private MoveHistory moveHistory; // History of moves made during the game, as packed move records
+    private ArrayList<MoveDelta> undoStack; // Changes of the moves played, last move on top
+    private ArrayList<MoveDelta> redoStack; // Changes of the undone moves, last undone move on top
 
     // Constructor to initialize a new game
     public ChessModel() {
@@ -37,46 +40,113 @@ public class ChessModel {
         this.round = 0;
         this.state = new BlueState(); // Blue starts by default
         this.chessBoard = new ChessBoard(); // Initializes a new chess board
-        this.moveHistory = new ArrayList<String>(); // Initializes move history
+        this.moveHistory = new MoveHistory(); // Initializes move history
+        this.undoStack = new ArrayList<MoveDelta>(); // Nothing to undo in a new game
+        this.redoStack = new ArrayList<MoveDelta>();
+        syncBitBoardState();
     }
 
     // Tracks the round number, incrementing it
     // Ow Ka Sheng
     public void trackRound() {
         round++;
+        syncBitBoardState();
     }
 
-    // Switches Tor pieces to Xor pieces and vice versa, and updates the pieces on
-    // the board
+    // Copies the turn and round onto the bitboard so it holds the complete game state
+    private void syncBitBoardState() {
+        BitBoard bitBoard = chessBoard.getBitBoard();
+        bitBoard.setSideToMove(state.getTeam().getCode());
+        bitBoard.setRound(round);
+    }
+
+    // Plays the selected piece to the given position through the current player state,
+    // recording what the move changes so it can be undone
+    public void playMove(int position) {
+        Piece piece = chessBoard.getSelectedPiece();
+        Position piecePos = piece.getPosition();
+        int from = piecePos.getIndex();
+        Position destination = Position.of(position);
+        Piece captured = chessBoard.getBoard()[destination.getRow()][destination.getColumn()];
+
+        MoveDelta delta = new MoveDelta(from, position, captured, state, round, moveHistory.size());
+        if (piece instanceof Ram)
+            delta.saveRamState((Ram) piece);
+
+        // Replaying the next undone move keeps the rest of the redo stack, any other move discards it
+        MoveDelta redo = getRedoMove();
+        if (redo != null && redo.getFrom() == from && redo.getTo() == position)
+            redoStack.remove(redoStack.size() - 1);
+        else
+            redoStack.clear();
+        undoStack.add(delta);
+
+        state.playMove(this, position);
+    }
+
+    // Takes back the last move: transforms Tor/Xor back if needed, moves the piece back with its
+    // Ram direction and icons, restores the captured piece, piece count, round and turn
+    // Returns the undone move, or null if there is nothing to undo
+    public MoveDelta undoMove() {
+        if (undoStack.isEmpty())
+            return null;
+        MoveDelta delta = undoStack.remove(undoStack.size() - 1);
+
+        // Transform back first so the piece on the destination has its type from before the move
+        delta.setTransformedSquares(delta.isTransformed() ? swapTorXorPieces() : 0);
+
+        Position destination = Position.of(delta.getTo());
+        Piece piece = chessBoard.getBoard()[destination.getRow()][destination.getColumn()];
+        if (delta.isRamMove())
+            delta.restoreRamState((Ram) piece);
+        chessBoard.undoMove(delta.getFrom(), delta.getTo(), delta.getCaptured());
+
+        moveHistory.truncate(delta.getHistoryIndex());
+        round = delta.getRound();
+        state = delta.getState();
+        syncBitBoardState();
+
+        redoStack.add(delta);
+        return delta;
+    }
+
+    // Returns the move redo would play next, or null if there is none
+    public MoveDelta getRedoMove() {
+        return redoStack.isEmpty() ? null : redoStack.get(redoStack.size() - 1);
+    }
+
+    // Returns true if there is a move to undo
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+
+    // Switches Tor pieces to Xor pieces and vice versa, and returns the squares of the
+    // transformed pieces, one bit per square (see BitBoard)
     // Ow Ka Sheng
-    public Map<String, ArrayList<Piece>> switchTorXor() {
-        round = 0;
-        Map<String, ArrayList<Piece>> teamPieces = new HashMap<>();
-        teamPieces.put("Red", new ArrayList<>());
-        teamPieces.put("Blue", new ArrayList<>());
-
-        Piece[][] board = chessBoard.getBoard();
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                Piece piece = board[i][j];
-                if (piece instanceof Tor || piece instanceof Xor) {
-                    // Convert piece to opposite type (Tor <=> Xor)
-                    Piece newPiece = (piece instanceof Tor) ? new Xor(piece) : new Tor(piece);
-                    board[i][j] = newPiece;
-
-                    // Add to appropriate team's list
-                    teamPieces.get(newPiece.getTeam()).add(newPiece);
-                }
-            }
+    public long switchTorXor() {
+        // Remember that the last move triggered the transformation
+        if (!undoStack.isEmpty()) {
+            MoveDelta delta = undoStack.get(undoStack.size() - 1);
+            delta.setTransformed(true);
+            if (moveHistory.size() == delta.getHistoryIndex() + 1)
+                moveHistory.markLastTransformed();
         }
+        return swapTorXorPieces();
+    }
 
-        return teamPieces;
+    // Transforms every Tor into a Xor and vice versa by toggling the board's Tor/Xor phase,
+    // returning the squares of the transformed pieces
+    private long swapTorXorPieces() {
+        round = 0;
+        long squares = chessBoard.switchTorXor();
+        syncBitBoardState();
+        return squares;
     }
 
     // Saves the current game state (board, moves, round, etc.) to a file
     // Lau Zi Herng
     public void saveGame(String filename) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, StandardCharsets.UTF_8))) {
             // Save metadata
             writer.write("---METADATA---\n");
             writer.write("Timestamp: " + java.time.LocalDateTime.now() + "\n");
@@ -95,8 +165,8 @@ public class ChessModel {
                             Ram ram = (Ram) piece;
                             writer.write(String.format("%d,%d,%s,%s,%s,%s,%s,%s%n",
                                     i, j,
-                                    piece.getClass().getSimpleName(),
-                                    piece.getTeam(),
+                                    PieceType.fromCode(piece.getPieceType()).getName(),
+                                    piece.getTeam().getName(),
                                     ram.getFlipIconPath(),
                                     ram.getInitialIconPath(),
                                     ram.getNextPosOperator(),
@@ -104,8 +174,8 @@ public class ChessModel {
                         } else {
                             writer.write(String.format("%d,%d,%s,%s%n",
                                     i, j,
-                                    piece.getClass().getSimpleName(),
-                                    piece.getTeam()));
+                                    PieceType.fromCode(piece.getPieceType()).getName(),
+                                    piece.getTeam().getName()));
                         }
                     }
                 }
@@ -117,8 +187,8 @@ public class ChessModel {
 
             // Save move history
             writer.write("---MOVES---\n");
-            for (String move : moveHistory) {
-                writer.write(move + "\n");
+            for (int i = 0; i < moveHistory.size(); i++) {
+                writer.write(moveHistory.getNotation(i) + "\n");
             }
 
             // Save current round
@@ -130,10 +200,34 @@ public class ChessModel {
         }
     }
 
-    // Loads a saved game from a file
+    // Saves the current game state in the compact binary format (see BinarySaveFormat)
+    public void saveBinaryGame(String filename) {
+        try {
+            Files.write(Paths.get(filename), toBinary());
+        } catch (IOException e) {
+            System.err.println("Error saving game: " + e.getMessage());
+        }
+    }
+
+    // Returns the current game state in the compact binary format
+    public byte[] toBinary() {
+        return BinarySaveFormat.encode(chessBoard.getBoard(), state.getTeam(), round, moveHistory);
+    }
+
+    // Loads a saved game from a file, in either the text or the binary format
     // Lau Zi Herng
     public boolean loadGame(String filename) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(Paths.get(filename));
+        } catch (IOException e) {
+            System.err.println("Error loading game: " + e.getMessage());
+            return false;
+        }
+        if (BinarySaveFormat.isBinary(data))
+            return loadBinaryGame(data);
+
+        try (BufferedReader reader = new BufferedReader(new StringReader(new String(data, StandardCharsets.UTF_8)))) {
             Piece[][] board = new Piece[ChessBoard.ROWS][ChessBoard.COLUMNS];
 
             String line;
@@ -142,8 +236,11 @@ public class ChessModel {
             boolean readingMoves = false;
             boolean readingRound = false;
             boolean readingPieceCount = false;
+            boolean hasBoard = false; // A file without a board section is not a save
 
             moveHistory.clear(); // Clear previous history before loading new game
+            undoStack.clear(); // Moves of the previous game cannot be undone
+            redoStack.clear();
             while ((line = reader.readLine()) != null) {
                 if (line.equals("---METADATA---")) {
                     // Read and skip metadata section
@@ -157,6 +254,7 @@ public class ChessModel {
                 if (line.equals("---BOARD---")) {
                     readingState = false;
                     readingBoard = true;
+                    hasBoard = true;
                     continue;
                 }
                 if (line.equals("---MOVES---")) {
@@ -190,8 +288,8 @@ public class ChessModel {
                     // Read and set the round number
                     round = Integer.parseInt(line);
                 } else if (readingMoves) {
-                    // Add the moves to the move history
-                    moveHistory.add(line);
+                    // Add the moves to the move history (old saves only have the destination, e.g. "C3")
+                    moveHistory.add(Move.parseNotation(line));
                 } else if (readingPieceCount) {
                     // Read and set the piece count
                     int pieceCount = Integer.parseInt(line.split(":")[1].trim());
@@ -202,9 +300,9 @@ public class ChessModel {
                     String[] parts = line.split(",");
                     int row = Integer.parseInt(parts[0]);
                     int column = Integer.parseInt(parts[1]);
-                    String pieceType = parts[2];
-                    String team = parts[3];
-                    Position position = new Position(row, column);
+                    PieceType pieceType = PieceType.fromName(parts[2]);
+                    Team team = Team.fromName(parts[3]);
+                    Position position = Position.of(row, column);
 
                     // Create the piece and handle Ram-specific fields
                     Piece piece = chessBoard.createPiece(pieceType, position, team, state.getTeam());
@@ -223,8 +321,12 @@ public class ChessModel {
                     }
                 }
             }
+            if (!hasBoard)
+                throw new IllegalArgumentException("No board in save file");
             chessBoard.setBoard(board); // Set the loaded board state
             chessBoard.setSelectedPiece(null); // Clear selected piece
+            syncBitBoardState();
+            restoreSauCaptureMove();
 
         } catch (IOException | IllegalArgumentException e) {
             System.err.println("Error loading game: " + e.getMessage());
@@ -233,31 +335,88 @@ public class ChessModel {
         return true;
     }
 
-    // Determines the winner of the game based on the presence of Sau pieces
-    // Lau Zi Herng
-    public String determineWinner() {
-        boolean isBlueSauFound = false;
-        boolean isRedSauFound = false;
-        Piece[][] board = chessBoard.getBoard();
-
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                if (board[i][j] instanceof Sau) {
-                    if (board[i][j].getTeam().equals("Blue"))
-                        isBlueSauFound = true;
-                    else
-                        isRedSauFound = true;
-                }
+    // Loads a game from a game archive (see GameArchive) by its number
+    public boolean loadGame(GameArchive archive, int gameId) {
+        try {
+            return loadBinaryGame(archive.getGame(gameId));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error loading game: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Loads a game saved in the compact binary format
+    public boolean loadBinaryGame(byte[] data) {
+        try {
+            BinarySaveFormat.decode(data, this);
+        } catch (IOException e) {
+            System.err.println("Error loading game: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    // Replaces the current game with a decoded one
+    public void restoreGame(Piece[][] board, Team turnTeam, int round, int[] moves) {
+        int pieceCount = 0;
+        for (Piece[] row : board) {
+            for (Piece piece : row) {
+                if (piece != null)
+                    pieceCount++;
             }
         }
-        return isRedSauFound ? (isBlueSauFound ? "None" : "Red") : "Blue";
+        this.state = turnTeam == Team.RED ? new RedState() : new BlueState();
+        this.round = round;
+        moveHistory.clear();
+        for (int move : moves)
+            moveHistory.add(move);
+        undoStack.clear(); // Moves of the previous game cannot be undone
+        redoStack.clear();
+        chessBoard.setBoard(board);
+        chessBoard.setPieceCount(pieceCount);
+        chessBoard.setSelectedPiece(null);
+        syncBitBoardState();
+        restoreSauCaptureMove();
+    }
+
+    // A loaded game without one of its Saus ended on its last recorded move
+    private void restoreSauCaptureMove() {
+        boolean ended = chessBoard.isSauCaptured(BitBoard.BLUE) || chessBoard.isSauCaptured(BitBoard.RED);
+        if (ended && moveHistory.size() > 0)
+            chessBoard.setSauCaptureMove(moveHistory.get(moveHistory.size() - 1));
+    }
+
+    // Determines the winner of the game based on the presence of Sau pieces
+    // Returns null while both Saus are on the board
+    // Lau Zi Herng
+    public Team determineWinner() {
+        // A team has lost once its Sau was captured, the board keeps track of both Saus
+        boolean isBlueSauFound = !chessBoard.isSauCaptured(BitBoard.BLUE);
+        boolean isRedSauFound = !chessBoard.isSauCaptured(BitBoard.RED);
+        return isRedSauFound ? (isBlueSauFound ? null : Team.RED) : Team.BLUE;
     }
 
     // Adds a move to the move history
     // Harold Goh
     public void addMoveToHistory(int nextMove) {
-        String pos = Position.convertPositionToChessNotation(nextMove);
-        moveHistory.add(pos);
+        moveHistory.add(createMoveRecord(nextMove));
+    }
+
+    // Builds the packed record of the move just played to the given position from its delta,
+    // or a destination-only record if the move was not played through playMove
+    private int createMoveRecord(int nextMove) {
+        MoveDelta delta = undoStack.isEmpty() ? null : undoStack.get(undoStack.size() - 1);
+        if (delta == null || delta.getTo() != nextMove || delta.getHistoryIndex() != moveHistory.size())
+            return Move.destinationOnly(nextMove);
+
+        Position destination = Position.of(nextMove);
+        Piece piece = chessBoard.getBoard()[destination.getRow()][destination.getColumn()];
+        Piece captured = delta.getCaptured();
+        int flags = 0;
+        if (piece instanceof Ram && (destination.getRow() == 0 || destination.getRow() == ChessBoard.ROWS - 1))
+            flags |= Move.FLAG_RAM_TURN;
+        return Move.encode(delta.getFrom(), nextMove, piece.getPieceType(),
+                captured == null ? Move.NO_CAPTURE : captured.getPieceType(), flags);
     }
 
     // Clears the move history
@@ -270,11 +429,12 @@ public class ChessModel {
     // Ow Ka Sheng
     public void setState(PlayerState state) {
         this.state = state;
+        syncBitBoardState();
     }
 
     // Returns the move history
     // Harold Goh
-    public ArrayList<String> getMoveHistory() {
+    public MoveHistory getMoveHistory() {
         return moveHistory;
     }
 
@@ -286,7 +446,7 @@ public class ChessModel {
 
     // Returns the current team's turn
     // Ow Ka Sheng
-    public String getCurrentTurnTeam() {
+    public Team getCurrentTurnTeam() {
         return state.getTeam();
     }
 
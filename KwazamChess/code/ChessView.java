@@ -1,12 +1,13 @@
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import javax.imageio.ImageIO;
-import javax.sound.sampled.*;
+import java.util.Set;
 import javax.swing.*;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.Border;
@@ -37,7 +38,8 @@ public class ChessView extends JFrame {
 
     private JMenuBar taskBar;
     private JPanel moves;
-    private JPanel movesContent;
+    private JList<String> movesContent;
+    private MoveListModel moveListModel;
     private JButton clear;
 
     private JPanel boardRows;
@@ -55,10 +57,13 @@ public class ChessView extends JFrame {
     private JMenu settings;
     private JMenu sound;
     private JMenu theme;
+    private JMenu opponent;
     private JMenu help;
 
     private JMenuItem loadGameItem;
     private JMenuItem saveGameItem;
+    private JMenuItem undoItem;
+    private JMenuItem redoItem;
     private JMenuItem newGameItem;
     private JMenuItem restartGameItem;
     private JMenuItem exitItem;
@@ -72,6 +77,9 @@ public class ChessView extends JFrame {
     private JMenuItem lightThemeItem;
     private JMenuItem darkThemeItem;
 
+    private JMenuItem humanOpponentItem;
+    private JMenuItem computerOpponentItem;
+
     private JPanel emptyBox;
 
     private boolean isAudioEnabled;
@@ -79,6 +87,11 @@ public class ChessView extends JFrame {
 
     private JLayeredPane layeredPane;
 
+    private final IconCache iconCache = new IconCache(); // Decoded and scaled piece icons
+    private final Map<Integer, Font> boldFonts = new HashMap<>(); // Bold Arial fonts by size
+    private SwingWorker<Void, Void> iconWorker; // Latest background icon rescale, or null
+    private SoundPlayer soundPlayer; // Sound effects, loaded once
+
     // ChessView constructor
     // Yoong Tzer Shih
     public ChessView(Piece[][] board) {
@@ -87,6 +100,15 @@ public class ChessView extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(810, 770);
 
+        // Decodes the sound effects once and releases their audio lines when the window closes
+        soundPlayer = new SoundPlayer();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                soundPlayer.shutdown();
+            }
+        });
+
         setLocationRelativeTo(null);
 
         ImageIcon icon = new ImageIcon("src/Icon.png");
@@ -107,7 +129,7 @@ public class ChessView extends JFrame {
         setUpChessBoard(board);
         taskbarSetUp();
         movesPanelSetUp();
-        toggleBoardLabel("Blue");
+        toggleBoardLabel(Team.BLUE);
         layeredPaneSetUp();
 
         setVisible(true);
@@ -136,6 +158,16 @@ public class ChessView extends JFrame {
         return saveGameItem;
     }
 
+    // Method to return undo menu item
+    public JMenuItem getUndoItem() {
+        return undoItem;
+    }
+
+    // Method to return redo menu item
+    public JMenuItem getRedoItem() {
+        return redoItem;
+    }
+
     // Method to return new game menu item
     public JMenuItem getNewGameItem() {
         return newGameItem;
@@ -171,6 +203,16 @@ public class ChessView extends JFrame {
         return darkThemeItem;
     }
 
+    // Method to return human opponent menu item
+    public JMenuItem getHumanOpponentItem() {
+        return humanOpponentItem;
+    }
+
+    // Method to return computer opponent menu item
+    public JMenuItem getComputerOpponentItem() {
+        return computerOpponentItem;
+    }
+
     // Method to return rules menu item
     public JMenuItem getRulesItem() {
         return rulesItem;
@@ -228,9 +270,8 @@ public class ChessView extends JFrame {
         if (width <= 0 || height <= 0)
             return;
         try {
-            // Load and scale the image
-            Image icon = ImageIO.read(getClass().getResource(iconPath));
-            ImageIcon imageIcon = new ImageIcon(icon.getScaledInstance(width, height, Image.SCALE_SMOOTH));
+            // Load and scale the image, or reuse it if it was already scaled to this size
+            ImageIcon imageIcon = iconCache.getIcon(iconPath, width, height);
 
             // Set the icon and disabled icon for the button
             btn.setIcon(imageIcon);
@@ -428,6 +469,7 @@ public class ChessView extends JFrame {
         updateMenuColors(settings, color);
         updateMenuColors(sound, color);
         updateMenuColors(theme, color);
+        updateMenuColors(opponent, color);
         updateMenuColors(help, color);
     }
 
@@ -581,6 +623,7 @@ public class ChessView extends JFrame {
         settings = new JMenu("Settings");
         sound = new JMenu("Sound");
         theme = new JMenu("Theme");
+        opponent = new JMenu("Opponent");
         help = new JMenu("Help");
 
         newGameItem = new JMenuItem("New Game");
@@ -589,6 +632,8 @@ public class ChessView extends JFrame {
 
         saveGameItem = new JMenuItem("Save Game");
         loadGameItem = new JMenuItem("Load Game");
+        undoItem = new JMenuItem("Undo");
+        redoItem = new JMenuItem("Redo");
 
         onSoundItem = new JMenuItem("On");
         offSoundItem = new JMenuItem("Off");
@@ -596,6 +641,9 @@ public class ChessView extends JFrame {
         lightThemeItem = new JMenuItem("Light");
         darkThemeItem = new JMenuItem("Dark");
 
+        humanOpponentItem = new JMenuItem("Human");
+        computerOpponentItem = new JMenuItem("Computer");
+
         rulesItem = new JMenuItem("Rules");
         aboutItem = new JMenuItem("About");
 
@@ -605,6 +653,8 @@ public class ChessView extends JFrame {
 
         move.add(saveGameItem);
         move.add(loadGameItem);
+        move.add(undoItem);
+        move.add(redoItem);
 
         sound.add(onSoundItem);
         sound.add(offSoundItem);
@@ -612,8 +662,12 @@ public class ChessView extends JFrame {
         theme.add(lightThemeItem);
         theme.add(darkThemeItem);
 
+        opponent.add(humanOpponentItem);
+        opponent.add(computerOpponentItem);
+
         settings.add(sound);
         settings.add(theme);
+        settings.add(opponent);
 
         help.add(rulesItem);
         help.add(aboutItem);
@@ -623,6 +677,7 @@ public class ChessView extends JFrame {
         setMenuStyle(settings);
         setMenuStyle(sound);
         setMenuStyle(theme);
+        setMenuStyle(opponent);
         setMenuStyle(help);
 
         taskBar.add(game);
@@ -647,9 +702,22 @@ public class ChessView extends JFrame {
         moves.setBorder(border);
         moves.setLayout(new BoxLayout(moves, BoxLayout.Y_AXIS));
 
-        movesContent = new JPanel();
-        movesContent.setLayout(new BoxLayout(movesContent, BoxLayout.Y_AXIS));
+        // Only the visible rows are rendered, new moves are appended through the list model
+        moveListModel = new MoveListModel();
+        movesContent = new JList<String>(moveListModel);
         movesContent.setBackground(movesColor);
+        movesContent.setFocusable(false);
+        movesContent.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                // Move rows are not selectable, they are always drawn like plain labels
+                super.getListCellRendererComponent(list, value, index, false, false);
+                setHorizontalAlignment(SwingConstants.CENTER);
+                return this;
+            }
+        });
+        setMoveListFont(getWidth() / 48);
 
         JScrollPane scrollPane = new JScrollPane(movesContent);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(100, 100, 100), 5));
@@ -671,29 +739,28 @@ public class ChessView extends JFrame {
 
     // Updates Move Panel Content
     // Harold Goh
-    public void refreshMoveHistory(ArrayList<String> moveHistory) {
-
-        movesContent.removeAll(); // Clear existing moves
-
-        int fontSize = getWidth() / 48;
-
-        for (int i = 0; i < moveHistory.size(); i++) {
-            JLabel moveLabel = new JLabel(i + 1 + ": " + moveHistory.get(i));
-            moveLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
-            moveLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            movesContent.add(Box.createVerticalStrut(10));
-            movesContent.add(moveLabel);
-        }
+    public void refreshMoveHistory(MoveHistory moveHistory) {
+        int oldSize = moveListModel.getSize();
+        moveListModel.sync(moveHistory); // Only the appended or removed rows are updated
+
+        // Keeps the latest move in sight when one is added
+        int newSize = moveListModel.getSize();
+        if (newSize > oldSize)
+            movesContent.ensureIndexIsVisible(newSize - 1);
+    }
 
-        movesContent.revalidate();
-        movesContent.repaint();
+    // Sets the font of the move rows, each row is as tall as the font plus the 10 pixel gap
+    // Fixed row heights let the list skip measuring the rows it does not show
+    private void setMoveListFont(int fontSize) {
+        movesContent.setFont(getBoldFont(fontSize));
+        movesContent.setFixedCellHeight(Math.max(1, fontSize + 10));
     }
 
     // ---------------------------------------------------------------------------------------------------
 
     // Flip board label
     // Ow Ka Sheng
-    public void toggleBoardLabel(String team) {
+    public void toggleBoardLabel(Team team) {
         // Set up board rows
         boardRows.removeAll();
         boardRows.setBorder(border);
@@ -701,18 +768,18 @@ public class ChessView extends JFrame {
         boardRows.setLayout(new GridLayout(8, 1));
         int fontSize = getWidth() / 50;
 
-        if (team.equals("Red")) {
+        if (team == Team.RED) {
             // If team is red, reverse the row labels
             for (int i = 0; i < 8; i++) {
                 rowLabel = new JLabel(String.valueOf(i + 1), SwingConstants.CENTER); // Reversed order
-                rowLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
+                rowLabel.setFont(getBoldFont(fontSize));
                 boardRows.add(rowLabel);
             }
         } else {
             // Normal row label order
             for (int i = 0; i < 8; i++) {
                 rowLabel = new JLabel(String.valueOf(8 - i), SwingConstants.CENTER);
-                rowLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
+                rowLabel.setFont(getBoldFont(fontSize));
                 boardRows.add(rowLabel);
             }
         }
@@ -723,18 +790,18 @@ public class ChessView extends JFrame {
         boardColumns.setBackground(colColor);
         boardColumns.setLayout(new GridLayout(1, 5));
 
-        if (team.equals("Red")) {
+        if (team == Team.RED) {
             // If team is blue, reverse the column labels
             for (int i = 0; i < 5; i++) {
                 colLabel = new JLabel(String.valueOf((char) ('E' - i)), SwingConstants.CENTER); // Reversed order
-                colLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
+                colLabel.setFont(getBoldFont(fontSize));
                 boardColumns.add(colLabel);
             }
         } else {
             // Normal column label order
             for (int i = 0; i < 5; i++) {
                 colLabel = new JLabel(String.valueOf((char) ('A' + i)), SwingConstants.CENTER);
-                colLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
+                colLabel.setFont(getBoldFont(fontSize));
                 boardColumns.add(colLabel);
             }
         }
@@ -752,7 +819,7 @@ public class ChessView extends JFrame {
         emptyBox.setBackground(rowColor);
 
         turnIndicator = new JLabel("Blue's Turn", SwingConstants.CENTER);
-        turnIndicator.setFont(new Font("Arial", Font.BOLD, 20));
+        turnIndicator.setFont(getBoldFont(20));
         turnIndicator.setForeground(new Color(53, 89, 131, 255));
         turnIndicator.setOpaque(true);
         turnIndicator.setBackground(taskbarColor);
@@ -788,6 +855,10 @@ public class ChessView extends JFrame {
 
         Dimension newSize = layeredPane.getSize();
 
+        // Icons scaled for the previous window size will not be shown again
+        Dimension iconSize = getCellIconSize(newSize);
+        iconCache.evictOtherSizes(iconSize.width, iconSize.height);
+
         // Turn indicator spans only up to moves panel
         turnIndicator.setBounds(0, 0, newSize.width - 200, 30);
 
@@ -804,25 +875,19 @@ public class ChessView extends JFrame {
         int baseHeight = 700;
         int fontSize = getWidth() / 48;
 
-        for (Component comp : movesContent.getComponents()) {
-            if (comp instanceof JLabel) {
-                JLabel moveLabel = (JLabel) comp;
-                moveLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
-                moveLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            }
-        }
+        setMoveListFont(fontSize);
 
         for (Component comp : boardRows.getComponents()) {
             if (comp instanceof JLabel) {
                 JLabel rowLabel = (JLabel) comp;
-                rowLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
+                rowLabel.setFont(getBoldFont(fontSize));
             }
         }
 
         for (Component comp : boardColumns.getComponents()) {
             if (comp instanceof JLabel) {
                 JLabel colLabel = (JLabel) comp;
-                colLabel.setFont(new Font("Arial", Font.BOLD, fontSize));
+                colLabel.setFont(getBoldFont(fontSize));
             }
         }
 
@@ -842,7 +907,7 @@ public class ChessView extends JFrame {
                 (int) (30 * scaleY) // height
         );
         int clearBtnFontSize = (int) (15 * scaleY);
-        clear.setFont(new Font("Arial", Font.BOLD, clearBtnFontSize));
+        clear.setFont(getBoldFont(clearBtnFontSize));
         clear.setBounds(
                 (int) (600 * scaleX),
                 (int) (0 * scaleY),
@@ -879,37 +944,82 @@ public class ChessView extends JFrame {
 
         int turnIndicatorFontSize = (int) (20 * scaleY);
 
-        turnIndicator.setFont(new Font("Arial", Font.BOLD, turnIndicatorFontSize));
+        turnIndicator.setFont(getBoldFont(turnIndicatorFontSize));
 
-        for (int row = 0; row < chessPieces.length; row++) {
+        // The pieces keep their current icons until the new ones are ready
+        rescaleIconsInBackground(board, iconSize);
 
-            for (int col = 0; col < chessPieces[row].length; col++) {
-
-                resizeButtonIcon(board[row][col], chessPieces[row][col], newSize);
+        layeredPane.revalidate();
+        layeredPane.repaint();
+    }
 
+    // Scales the piece icons for a new board size on a worker thread, then swaps them in on the
+    // event thread. A newer resize supersedes a rescale still in progress
+    private void rescaleIconsInBackground(Piece[][] board, Dimension iconSize) {
+        if (iconSize.width <= 0 || iconSize.height <= 0)
+            return;
+        Set<String> iconPaths = new HashSet<>();
+        for (Piece[] row : board) {
+            for (Piece piece : row) {
+                if (piece != null)
+                    iconPaths.add(piece.getIconPath());
             }
         }
-        layeredPane.revalidate();
-        layeredPane.repaint();
+
+        if (iconWorker != null)
+            iconWorker.cancel(false);
+        iconWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                for (String iconPath : iconPaths) {
+                    if (isCancelled())
+                        break;
+                    iconCache.getIcon(iconPath, iconSize.width, iconSize.height);
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || iconWorker != this)
+                    return;
+                iconWorker = null;
+                // Every icon is cached now, so this only swaps them in
+                for (int row = 0; row < chessPieces.length; row++) {
+                    for (int col = 0; col < chessPieces[row].length; col++) {
+                        if (board[row][col] != null)
+                            setIcon(chessPieces[row][col], board[row][col].getIconPath(), iconSize.width,
+                                    iconSize.height);
+                    }
+                }
+            }
+        };
+        iconWorker.execute();
     }
 
     // Resize Button
     // Yoong Tzer Shih
     private void resizeButtonIcon(Piece piece, JButton button, Dimension newSize) {
-        boolean isMaximized = getExtendedState() == Frame.MAXIMIZED_BOTH;
         if (piece == null) {
             return;
         }
 
-        if (isMaximized) {
-            setIcon(button, piece.getIconPath(), 120, 80);
-        }
-
-        else {
+        Dimension iconSize = getCellIconSize(newSize);
+        setIcon(button, piece.getIconPath(), iconSize.width, iconSize.height);
+    }
 
-            setIcon(button, piece.getIconPath(), (newSize.width - 230) / 5, (newSize.height - 60) / 8);
+    // Returns the size of the piece icons for a board size
+    private Dimension getCellIconSize(Dimension newSize) {
+        boolean isMaximized = getExtendedState() == Frame.MAXIMIZED_BOTH;
+        if (isMaximized) {
+            return new Dimension(120, 80);
         }
+        return new Dimension((newSize.width - 230) / 5, (newSize.height - 60) / 8);
+    }
 
+    // Returns the bold Arial font of a size, created once and reused by every resize
+    private Font getBoldFont(int size) {
+        return boldFonts.computeIfAbsent(size, fontSize -> new Font("Arial", Font.BOLD, fontSize));
     }
 
     // ---------------------------------------------------------------------------------------------------
@@ -945,23 +1055,7 @@ public class ChessView extends JFrame {
     // Yoong Tzer Shih
     public void pieceSelectSound() {
         if (isAudioEnabled) {
-            try {
-
-                File pieceSelect = new File("Audio/Piece_Select.wav");
-
-                if (!pieceSelect.exists()) {
-                    System.err.println("Audio file not found: " + "Audio/Piece_Select.wav");
-                    return;
-                }
-
-                AudioInputStream audioStream = AudioSystem.getAudioInputStream(pieceSelect);
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioStream);
-                clip.start();
-
-            } catch (IOException | LineUnavailableException | UnsupportedAudioFileException ex) {
-                System.err.println("Error playing audio: " + ex.getMessage());
-            }
+            soundPlayer.play(SoundPlayer.PIECE_SELECT);
         }
     }
 
@@ -970,30 +1064,8 @@ public class ChessView extends JFrame {
     // Play sound when a piece is moved
     // Yoong Tzer Shih
     public void pieceMoveSound() {
-
-        if (isAudioEnabled == true) {
-
-            try {
-
-                File pieceMoveSound = new File("Audio/Piece_Move.wav");
-
-                AudioInputStream audioStream = AudioSystem.getAudioInputStream(pieceMoveSound);
-
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioStream);
-                clip.start();
-
-                if (!pieceMoveSound.exists()) {
-
-                    System.err.println("Audio file not found: " + "Audio/Piece_Move.wav");
-                }
-
-            }
-
-            catch (IOException | LineUnavailableException | UnsupportedAudioFileException ex) {
-
-                System.out.println(ex.getMessage());
-            }
+        if (isAudioEnabled) {
+            soundPlayer.play(SoundPlayer.PIECE_MOVE);
         }
     }
 
@@ -1002,30 +1074,8 @@ public class ChessView extends JFrame {
     // Play sound when a piece is taken out (captured)
     // Yoong Tzer Shih
     public void pieceTakenOutSound() {
-
-        if (isAudioEnabled == true) {
-
-            try {
-
-                File pieceTakenOut = new File("Audio/Piece_Taken_Out.wav");
-
-                AudioInputStream audioStream = AudioSystem.getAudioInputStream(pieceTakenOut);
-
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioStream);
-                clip.start();
-
-                if (!pieceTakenOut.exists()) {
-
-                    System.err.println("Audio file not found: " + "Audio/Piece_Taken_Out.wav");
-                }
-
-            }
-
-            catch (IOException | LineUnavailableException | UnsupportedAudioFileException ex) {
-
-                System.out.println(ex.getMessage());
-            }
+        if (isAudioEnabled) {
+            soundPlayer.play(SoundPlayer.PIECE_TAKEN_OUT);
         }
     }
 
@@ -1033,15 +1083,15 @@ public class ChessView extends JFrame {
 
     // Toggles the enabled state of the pieces based on the current player's color
     // Ow Ka Sheng
-    public void togglePlayerPieceState(String color) {
+    public void togglePlayerPieceState(Team color) {
         // Iterate through each row and button (piece) on the chessboard
         for (JButton[] row : chessPieces) {
             for (JButton pieceBtn : row) {
                 // Get the team (color) of the current piece
-                String team = (String) pieceBtn.getClientProperty("team");
+                Team team = (Team) pieceBtn.getClientProperty("team");
 
                 // Enable the piece if it belongs to the current player, else disable it
-                if (color.equals(team)) {
+                if (team == color) {
                     pieceBtn.setEnabled(true); // Enable the current player's pieces
                 } else {
                     pieceBtn.setEnabled(false); // Disable the opponent's pieces
@@ -1056,11 +1106,12 @@ public class ChessView extends JFrame {
     // Highlights the possible path for a piece and enables or disables the buttons
     // based on the action
     // Ow Ka Sheng
-    public void setHighlightPath(ArrayList<int[]> possiblePath, boolean enableButton) {
-        // Iterate through each destination in the possible path
-        for (int[] dest : possiblePath) {
-            int row = dest[0]; // Row position of the destination
-            int column = dest[1]; // Column position of the destination
+    public void setHighlightPath(int[] possiblePath, int pathCount, boolean enableButton) {
+        // Iterate through each packed move in the possible path
+        for (int i = 0; i < pathCount; i++) {
+            int dest = Move.getTo(possiblePath[i]); // Destination square of the move
+            int row = Position.of(dest).getRow(); // Row position of the destination
+            int column = Position.of(dest).getColumn(); // Column position of the destination
             JButton btn = chessPieces[row][column]; // Button representing the destination cell
 
             // Enable the button and highlight it if enabling, else reset the button state
@@ -1100,6 +1151,15 @@ public class ChessView extends JFrame {
 
     // ---------------------------------------------------------------------------------------------------
 
+    // Shows a piece on a single cell, used when an undone move brings a captured piece back
+    public void setCellPiece(int row, int col, Piece piece) {
+        JButton cell = chessPieces[row][col];
+        resizeButtonIcon(piece, cell, layeredPane.getSize());
+        cell.putClientProperty("team", piece.getTeam());
+    }
+
+    // ---------------------------------------------------------------------------------------------------
+
     // Flips the chessboard based on the current state (flipped or not)
     // Ow Ka Sheng
     public void flipBoardView(Piece[][] board) {
@@ -1135,10 +1195,10 @@ public class ChessView extends JFrame {
 
     // Updates the turn indicator text and color based on the current team
     // Ow Ka Sheng
-    public void updateTurnIndicator(String team) {
-        turnIndicator.setText(team + "'s Turn");
+    public void updateTurnIndicator(Team team) {
+        turnIndicator.setText(team.getName() + "'s Turn");
         // Set color based on team (Blue or Red)
-        if (team.equals("Blue")) {
+        if (team == Team.BLUE) {
             turnIndicator.setForeground(new Color(53, 89, 131, 255)); // Dark blue
         } else {
             turnIndicator.setForeground(new Color(222, 0, 0, 255)); // Dark red
@@ -1152,46 +1212,33 @@ public class ChessView extends JFrame {
     // Clears the list of moves in the UI
     // Harold Goh
     public void clearMoves() {
-        movesContent.removeAll(); // Remove all move entries
-        movesContent.revalidate(); // Refresh the moves content
-        movesContent.repaint(); // Repaint the moves content
+        moveListModel.clear(); // Remove all move entries
         moves.revalidate(); // Refresh moves panel
         moves.repaint(); // Repaint moves panel
     }
 
     // ---------------------------------------------------------------------------------------------------
 
-    // Swaps the Tor and Xor pieces' icons
+    // Switches the view of the Tor and Xor pieces of both teams, updating only the icons on the
+    // given squares (one bit per square, see BitBoard)
     // Ow Ka Sheng
-    private void swapTorXorIcon(ArrayList<Piece> pieces) {
-        // Iterate through each tor/xor in the list
-        for (Piece piece : pieces) {
-            Position piecePos = piece.getPosition(); // Get the position of the piece
-            int row = piecePos.getRow(); // Row position of the piece
-            int col = piecePos.getColumn(); // Column position of the piece
+    public void switchTorXorView(long squares, Piece[][] board) {
+        // Iterate through each square holding a transformed tor/xor
+        for (long remaining = squares; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            int row = Position.of(square).getRow(); // Row position of the piece
+            int col = Position.of(square).getColumn(); // Column position of the piece
             JButton cell = chessPieces[row][col]; // Get the button representing the piece's cell
 
-            setIcon(cell, piece.getIconPath(), 120, 80); // Update the icon
+            setIcon(cell, board[row][col].getIconPath(), 120, 80); // Update the icon
         }
     }
 
     // ---------------------------------------------------------------------------------------------------
 
-    // Switches the view of Tor and Xor pieces for both Red and Blue teams
-    // Ow Ka Sheng
-    public void switchTorXorView(Map<String, ArrayList<Piece>> xorTorPieces) {
-        ArrayList<Piece> redPositions = xorTorPieces.get("Red");
-        ArrayList<Piece> bluePositions = xorTorPieces.get("Blue");
-
-        swapTorXorIcon(redPositions); // Update Red team pieces
-        swapTorXorIcon(bluePositions); // Update Blue team pieces
-    }
-
-    // ---------------------------------------------------------------------------------------------------
-
     // show winner panel based on team
     // Ow Ka Sheng
-    public void displayWinner(String winner) {
+    public void displayWinner(Team winner) {
 
         JDialog winnerMessage = new JDialog(this, "WINNER", true);
         winnerMessage.setSize(600, 450);
@@ -1204,14 +1251,14 @@ public class ChessView extends JFrame {
         Color textColor = new Color(50, 50, 50); // Dark neutral text
         Color vsColor = new Color(100, 100, 100); // Medium neutral gray for "VS"
         // Dynamically set colors based on the winner
-        Color winnerPanelColor = winner.equals("Blue") ? new Color(200, 230, 255) : new Color(255, 220, 220);
-        Color opponentPanelColor = winner.equals("Blue") ? new Color(255, 220, 220) : new Color(200, 230, 255);
+        Color winnerPanelColor = winner == Team.BLUE ? new Color(200, 230, 255) : new Color(255, 220, 220);
+        Color opponentPanelColor = winner == Team.BLUE ? new Color(255, 220, 220) : new Color(200, 230, 255);
         Color borderShadowColor = new Color(200, 200, 200); // Shadow color for panels
 
         // Winner and Opponent Information
-        String opponentName = winner.equals("Blue") ? "RED" : "BLUE";
-        String winnerAvatar = winner.equals("Blue") ? "src/Blue_Biz.png" : "src/Red_Biz.png";
-        String opponentAvatar = winner.equals("Blue") ? "src/Red_Biz.png" : "src/Blue_Biz.png";
+        String opponentName = winner == Team.BLUE ? "RED" : "BLUE";
+        String winnerAvatar = winner == Team.BLUE ? "src/Blue_Biz.png" : "src/Red_Biz.png";
+        String opponentAvatar = winner == Team.BLUE ? "src/Red_Biz.png" : "src/Blue_Biz.png";
 
         // Header Label
         JLabel headerLabel = new JLabel("YOU BEAT " + opponentName + "!");
@@ -1229,7 +1276,7 @@ public class ChessView extends JFrame {
                         Image.SCALE_SMOOTH)));
         winnerCrown.setHorizontalAlignment(SwingConstants.CENTER);
 
-        JLabel winnerLabel = new JLabel(winner.toUpperCase(), SwingConstants.CENTER);
+        JLabel winnerLabel = new JLabel(winner.getName().toUpperCase(), SwingConstants.CENTER);
         winnerLabel.setFont(new Font("Arial", Font.BOLD, 16));
         winnerPanel.add(winnerCrown, BorderLayout.NORTH);
         winnerPanel.add(winnerAvatarLabel, BorderLayout.CENTER);
@@ -1306,4 +1353,4 @@ public class ChessView extends JFrame {
                 "Load " + status,
                 JOptionPane.INFORMATION_MESSAGE);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a game archive: many games in the binary save format (see BinarySaveFormat)
+ * in one file, written by GameArchiveWriter. Games are numbered from 0 in the order they were
+ * appended, and any of them is fetched in constant time through the index at the end of the file,
+ * which is memory-mapped along with the games.
+ *
+ * Layout (version 2), big-endian:
+ * - 4 bytes: magic "KWZA", then 1 byte: format version
+ * - the games, each in a frame: int length, unsigned short plies, byte result (RESULT_NONE,
+ *   RESULT_BLUE or RESULT_RED), one reserved byte, then the binary save
+ * - the index, one ENTRY_SIZE entry per game:
+ *   long offset of the game's binary save in the file, then the frame's length, plies, result
+ *   and reserved byte
+ * - trailer: long offset of the index, int number of games, magic "KWZA"
+ *
+ * The index and trailer are written when the writer is closed, and a writer reopening the archive
+ * truncates them and appends after the last game. An archive whose writer did not close (the
+ * process was killed) has no valid trailer: its index is then rebuilt by scanning the frames from
+ * the start, keeping every game up to the first incomplete one or the first whose CRC fails.
+ */
+public final class GameArchive implements Closeable {
+    public static final int VERSION = 2;
+
+    // Winner of an archived game, as the SelfPlay records store it
+    public static final int RESULT_NONE = 0;
+    public static final int RESULT_BLUE = 1;
+    public static final int RESULT_RED = 2;
+
+    static final byte[] MAGIC = { 'K', 'W', 'Z', 'A' };
+    static final int HEADER_SIZE = MAGIC.length + 1;
+    static final int FRAME_SIZE = 8;
+    static final int ENTRY_SIZE = 16;
+    static final int TRAILER_SIZE = 16;
+    static final int MAX_PLIES = 0xFFFF;
+
+    // Entry and trailer field offsets, an entry ends with the FRAME_SIZE bytes of the game's frame
+    private static final int ENTRY_FRAME = 8;
+    private static final int ENTRY_PLIES = ENTRY_FRAME + 4;
+    private static final int ENTRY_RESULT = ENTRY_FRAME + 6;
+    private static final int TRAILER_INDEX_OFFSET = 0;
+    private static final int TRAILER_GAME_COUNT = 8;
+    private static final int TRAILER_MAGIC = 12;
+
+    // Games are mapped in segments, a single mapping cannot exceed 2 GB
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final ByteBuffer index; // The index entries, mapped or rebuilt
+    private final MappedByteBuffer[] segments; // Games, SEGMENT_SIZE bytes of the file each
+    private final long gamesEnd; // File offset after the last game
+    private final int gameCount;
+    private final boolean recovered; // True if the index was rebuilt from the frames
+
+    /**
+     * Opens an archive.
+     *
+     * @param filename The archive file.
+     * @throws IOException If the file cannot be read or is not a valid archive.
+     */
+    public GameArchive(String filename) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            Index contents = readIndex(channel, true);
+            index = contents.entries;
+            gamesEnd = contents.gamesEnd;
+            gameCount = contents.gameCount;
+            recovered = contents.recovered;
+
+            int segmentCount = (int) ((gamesEnd + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE, gamesEnd - start));
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    // Index of an archive file: its entries, where the games end and how many there are
+    static final class Index {
+        final ByteBuffer entries;
+        final long gamesEnd;
+        final int gameCount;
+        final boolean recovered;
+
+        Index(ByteBuffer entries, long gamesEnd, int gameCount, boolean recovered) {
+            this.entries = entries;
+            this.gamesEnd = gamesEnd;
+            this.gameCount = gameCount;
+            this.recovered = recovered;
+        }
+    }
+
+    /**
+     * Reads the index of an archive, or rebuilds it from the frames if the archive was not closed.
+     *
+     * @param channel The archive file.
+     * @param map     True to map the entries of a closed archive, false to copy them to the heap.
+     * @return The index.
+     * @throws IOException If the file is not an archive.
+     */
+    static Index readIndex(FileChannel channel, boolean map) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE)
+            throw new IOException("Not a game archive");
+        ByteBuffer header = read(channel, 0, HEADER_SIZE);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i])
+                throw new IOException("Not a game archive");
+        }
+        int version = header.get(MAGIC.length) & 0xFF;
+        if (version != VERSION)
+            throw new IOException("Unsupported game archive version: " + version);
+
+        if (size >= HEADER_SIZE + TRAILER_SIZE) {
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long indexOffset = trailer.getLong(TRAILER_INDEX_OFFSET);
+            int gameCount = trailer.getInt(TRAILER_GAME_COUNT);
+            long indexSize = (long) gameCount * ENTRY_SIZE;
+            if (hasMagic(trailer, TRAILER_MAGIC) && gameCount >= 0 && indexOffset >= HEADER_SIZE
+                    && indexOffset + indexSize == size - TRAILER_SIZE && indexSize <= Integer.MAX_VALUE) {
+                ByteBuffer entries = map ? channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexSize)
+                        : read(channel, indexOffset, (int) indexSize);
+                return new Index(entries, indexOffset, gameCount, false);
+            }
+        }
+        return recover(channel);
+    }
+
+    // Rebuilds the index of an archive that was not closed from the frames of its games
+    private static Index recover(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        long position = HEADER_SIZE;
+        int gameCount = 0;
+        while (position + FRAME_SIZE <= size) {
+            ByteBuffer frame = read(channel, position, FRAME_SIZE);
+            int length = frame.getInt(0);
+            if (length <= 0 || position + FRAME_SIZE + length > size)
+                break;
+            byte[] game = read(channel, position + FRAME_SIZE, length).array();
+            if (!BinarySaveFormat.hasValidChecksum(game))
+                break;
+
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE);
+            entry.putLong(position + FRAME_SIZE).put(frame.array());
+            entries.write(entry.array(), 0, ENTRY_SIZE);
+            position += FRAME_SIZE + length;
+            gameCount++;
+        }
+        return new Index(ByteBuffer.wrap(entries.toByteArray()), position, gameCount, true);
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer, int offset) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(offset + i) != MAGIC[i])
+                return false;
+        }
+        return true;
+    }
+
+    // Reads bytes at a file offset
+    static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0)
+                throw new IOException("Unexpected end of game archive");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Returns the number of games
+    public int size() {
+        return gameCount;
+    }
+
+    // Returns true if the archive was not closed after writing and its index was rebuilt
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Returns a game in the binary save format, ready for ChessModel.loadBinaryGame.
+     *
+     * @param gameId The game number, from 0.
+     * @return A copy of the game's bytes.
+     * @throws IllegalArgumentException If there is no such game.
+     * @throws IOException              If the game cannot be read or its index entry is corrupted.
+     */
+    public byte[] getGame(int gameId) throws IOException {
+        int entry = entry(gameId);
+        long offset = index.getLong(entry);
+        int length = index.getInt(entry + ENTRY_FRAME);
+        if (offset < HEADER_SIZE + FRAME_SIZE || length < 0 || offset + length > gamesEnd)
+            throw new IOException("Game archive index is corrupted");
+
+        byte[] game = new byte[length];
+        int segment = (int) (offset / SEGMENT_SIZE);
+        int start = (int) (offset % SEGMENT_SIZE);
+        if (start + length <= SEGMENT_SIZE) {
+            // A duplicate has its own position, so threads can read games at the same time
+            ByteBuffer games = segments[segment].duplicate();
+            games.position(start);
+            games.get(game);
+        } else {
+            // The rare game across two segments is read from the file
+            read(channel, offset, length).get(game);
+        }
+        return game;
+    }
+
+    // Returns the number of plies of a game
+    public int getPlies(int gameId) {
+        return index.getShort(entry(gameId) + ENTRY_PLIES) & 0xFFFF;
+    }
+
+    // Returns the winner of a game: RESULT_NONE, RESULT_BLUE or RESULT_RED
+    public int getResult(int gameId) {
+        return index.get(entry(gameId) + ENTRY_RESULT);
+    }
+
+    // Returns the result code of a winner, null for none
+    public static int resultCode(Team winner) {
+        return winner == null ? RESULT_NONE : winner.getCode() + 1;
+    }
+
+    // Returns the index position of a game's entry
+    private int entry(int gameId) {
+        if (gameId < 0 || gameId >= gameCount)
+            throw new IllegalArgumentException("No game " + gameId + " in archive of " + gameCount + " games");
+        return gameId * ENTRY_SIZE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
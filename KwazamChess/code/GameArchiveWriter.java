@@ -0,0 +1,117 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends games to a game archive (see GameArchive for the layout), creating the file if needed.
+ * Games are streamed to the end of the file as they are appended, only their index entries are
+ * kept in memory (GameArchive.ENTRY_SIZE bytes per game), and close writes the index and trailer.
+ * Reopening an archive truncates its index and trailer, so they are only ever written once.
+ * If the process dies before close, GameArchive and the next writer rebuild the index from the
+ * games, and only the games still in the write buffer are lost. Appending is thread-safe.
+ */
+public class GameArchiveWriter implements Closeable {
+    private final FileChannel channel;
+    private final DataOutputStream output; // Buffered stream to the end of the file
+    private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream(); // Index entries
+    private final DataOutputStream index = new DataOutputStream(indexBytes);
+    private long position; // File offset of the next byte written
+    private int gameCount;
+
+    /**
+     * Opens an archive for appending.
+     *
+     * @param filename The archive file, created if it does not exist.
+     * @throws IOException If the file cannot be written or is not a valid archive.
+     */
+    public GameArchiveWriter(String filename) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() > 0) {
+                // The games already in the archive keep their numbers, new ones replace the old index
+                GameArchive.Index existing = GameArchive.readIndex(channel, false);
+                gameCount = existing.gameCount;
+                ByteBuffer entries = existing.entries;
+                indexBytes.write(entries.array(), 0, entries.remaining());
+                position = existing.gamesEnd;
+                channel.truncate(position);
+            }
+            channel.position(position);
+            output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            if (position == 0) {
+                output.write(GameArchive.MAGIC);
+                output.write(GameArchive.VERSION);
+                position = GameArchive.HEADER_SIZE;
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Appends a game.
+     *
+     * @param game   The game in the binary save format (see ChessModel.toBinary).
+     * @param plies  The number of plies played.
+     * @param winner The winning team, or null.
+     * @return The game's number in the archive.
+     * @throws IOException If the game cannot be written.
+     */
+    public synchronized int append(byte[] game, int plies, Team winner) throws IOException {
+        if (plies < 0 || plies > GameArchive.MAX_PLIES)
+            throw new IllegalArgumentException("Ply count out of range: " + plies);
+        int result = GameArchive.resultCode(winner);
+        output.writeInt(game.length);
+        output.writeShort(plies);
+        output.writeByte(result);
+        output.writeByte(0);
+        output.write(game);
+
+        index.writeLong(position + GameArchive.FRAME_SIZE);
+        index.writeInt(game.length);
+        index.writeShort(plies);
+        index.writeByte(result);
+        index.writeByte(0);
+        position += GameArchive.FRAME_SIZE + game.length;
+        return gameCount++;
+    }
+
+    /**
+     * Appends the current game of a model.
+     *
+     * @param model The game.
+     * @return The game's number in the archive.
+     * @throws IOException If the game cannot be written.
+     */
+    public int append(ChessModel model) throws IOException {
+        return append(model.toBinary(), model.getMoveHistory().size(), model.determineWinner());
+    }
+
+    // Returns the number of games in the archive, including the ones appended
+    public synchronized int size() {
+        return gameCount;
+    }
+
+    // Writes the index and trailer and closes the file
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            indexBytes.writeTo(output);
+            output.writeLong(position);
+            output.writeInt(gameCount);
+            output.write(GameArchive.MAGIC);
+            output.flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
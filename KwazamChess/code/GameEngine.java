@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Headless game API over ChessModel: legal moves, playing moves, game end and snapshots.
+ * It plays a move exactly like a click in the game (State design pattern, move history, Tor/Xor
+ * transformation) but uses no Swing or AWT class, so batch self-play and analysis can run on
+ * machines without a display. ChessController is one client of it.
+ *
+ * Moves are packed ints (see Move); play only looks at their origin and destination.
+ */
+public class GameEngine {
+    private final ChessModel model; // Game state
+    private final int[] moveBuffer = new int[Move.MAX_MOVES]; // Scratch buffer for legality checks
+    private long lastTransformedSquares; // Squares of the Tor/Xor pieces transformed by the last move
+
+    // Creates an engine on a new game
+    public GameEngine() {
+        this(new ChessModel());
+    }
+
+    /**
+     * Creates an engine driving an existing model.
+     *
+     * @param model The game to play on.
+     */
+    public GameEngine(ChessModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Writes the legal moves of the side to move into the caller's buffer.
+     *
+     * @param moves Buffer of at least Move.MAX_MOVES entries.
+     * @return The number of moves, 0 once the game is over.
+     */
+    public int legalMoves(int[] moves) {
+        if (model.determineWinner() != null)
+            return 0;
+        return model.getChessBoard().generateMoves(model.getCurrentTurnTeam(), moves);
+    }
+
+    // Returns the legal moves of the side to move, empty once the game is over
+    public int[] legalMoves() {
+        int[] moves = new int[Move.MAX_MOVES];
+        return Arrays.copyOf(moves, legalMoves(moves));
+    }
+
+    /**
+     * Plays a move for the side to move.
+     *
+     * @param move The packed move, only its origin and destination are used.
+     * @return The move as recorded in the move history (with its capture and Tor/Xor flags).
+     * @throws IllegalArgumentException If the move is not legal in the current position.
+     */
+    public int play(int move) {
+        return play(Move.getFrom(move), Move.getTo(move));
+    }
+
+    /**
+     * Plays the piece on one position to another.
+     *
+     * @param from Position index of the piece to move.
+     * @param to   Position index of the destination.
+     * @return The move as recorded in the move history (with its capture and Tor/Xor flags).
+     * @throws IllegalArgumentException If the move is not legal in the current position.
+     */
+    public int play(int from, int to) {
+        if (!isLegal(from, to))
+            throw new IllegalArgumentException("Illegal move: " + Position.convertPositionToChessNotation(from)
+                    + "-" + Position.convertPositionToChessNotation(to));
+
+        ChessBoard chessBoard = model.getChessBoard();
+        Position origin = Position.of(from);
+        chessBoard.setSelectedPiece(chessBoard.getBoard()[origin.getRow()][origin.getColumn()]);
+        model.playMove(to);
+        model.addMoveToHistory(to);
+
+        // Tor and Xor transform every 2 rounds
+        lastTransformedSquares = model.getRound() == 2 ? model.switchTorXor() : 0;
+        chessBoard.setSelectedPiece(null);
+
+        MoveHistory history = model.getMoveHistory();
+        return history.get(history.size() - 1);
+    }
+
+    // Returns true if the side to move can play the piece on one position to another
+    public boolean isLegal(int from, int to) {
+        int count = legalMoves(moveBuffer);
+        for (int i = 0; i < count; i++) {
+            if (Move.getFrom(moveBuffer[i]) == from && Move.getTo(moveBuffer[i]) == to)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes back the last move.
+     *
+     * @return What the undone move changed, or null if there is nothing to undo.
+     */
+    public MoveDelta undo() {
+        lastTransformedSquares = 0;
+        return model.undoMove();
+    }
+
+    // Returns true once a Sau was captured or the side to move cannot move
+    public boolean isTerminal() {
+        return legalMoves(moveBuffer) == 0;
+    }
+
+    // Returns the winning team, or null while both Saus are on the board
+    public Team winner() {
+        return model.determineWinner();
+    }
+
+    // Returns the packed move that captured a Sau and ended the game, or ChessBoard.NO_SAU_CAPTURE
+    public int getSauCaptureMove() {
+        return model.getChessBoard().getSauCaptureMove();
+    }
+
+    // Returns the team to move
+    public Team getSideToMove() {
+        return model.getCurrentTurnTeam();
+    }
+
+    // Returns the squares of the Tor/Xor pieces transformed by the last move, one bit per square,
+    // or 0 if there were none
+    public long getLastTransformedSquares() {
+        return lastTransformedSquares;
+    }
+
+    /**
+     * Captures the whole game (board, turn, round, move history) in the compact binary save format.
+     * Undo and redo history is not part of a snapshot.
+     *
+     * @return The snapshot.
+     */
+    public byte[] snapshot() {
+        return model.toBinary();
+    }
+
+    /**
+     * Replaces the game with a snapshot taken by snapshot().
+     *
+     * @param snapshot The snapshot.
+     * @throws IOException If the snapshot is corrupted.
+     */
+    public void restore(byte[] snapshot) throws IOException {
+        BinarySaveFormat.decode(snapshot, model);
+        lastTransformedSquares = 0;
+    }
+
+    // Returns the position as a bitboard, for the search
+    public BitBoard getBitBoard() {
+        return model.getChessBoard().getBitBoard();
+    }
+
+    // Returns the underlying model
+    public ChessModel getModel() {
+        return model;
+    }
+}
@@ -0,0 +1,21 @@
+import java.util.SplittableRandom;
+
+// Self-play policy capturing the most valuable piece it can (a Sau above all),
+// and playing a random move when nothing can be captured
+public class GreedyCapturePolicy implements MovePolicy {
+    @Override
+    public int chooseMove(GameEngine engine, int[] moves, int count, SplittableRandom random) {
+        int bestMove = moves[random.nextInt(count)];
+        int bestValue = 0;
+        for (int i = 0; i < count; i++) {
+            if (!Move.isCapture(moves[i]))
+                continue;
+            int value = SearchEngine.PIECE_VALUES[Move.getCapturedType(moves[i])];
+            if (value > bestValue) {
+                bestValue = value;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+}
@@ -0,0 +1,105 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * Bounded LRU caches of the piece images used by ChessView: decoded source images by icon path,
+ * and scaled icons by (icon path, width, height). A piece icon is then decoded from disk once and
+ * scaled once per board size, instead of on every move and every resize.
+ * Synchronized, so a background worker can scale icons for a new window size while the event
+ * thread keeps showing the old ones.
+ */
+public class IconCache {
+    // Enough for every piece icon at two board sizes (the window size and the maximized size)
+    private static final int MAX_SCALED_ICONS = 64;
+    // Enough for every piece icon of both teams
+    private static final int MAX_SOURCE_IMAGES = 32;
+
+    private final Map<String, BufferedImage> sourceImages = createLruMap(MAX_SOURCE_IMAGES);
+    private final Map<String, ImageIcon> scaledIcons = createLruMap(MAX_SCALED_ICONS);
+
+    /**
+     * Returns an icon scaled to the given size, decoding and scaling it only on a cache miss.
+     *
+     * @param iconPath The icon's resource path.
+     * @param width    Target width in pixels.
+     * @param height   Target height in pixels.
+     * @return The scaled icon.
+     * @throws IOException If the image cannot be read.
+     */
+    public synchronized ImageIcon getIcon(String iconPath, int width, int height) throws IOException {
+        String key = iconPath + "@" + width + "x" + height;
+        ImageIcon icon = scaledIcons.get(key);
+        if (icon == null) {
+            icon = new ImageIcon(scale(getSourceImage(iconPath), width, height));
+            scaledIcons.put(key, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Drops the scaled icons of every size but the given one, called when the window size changes.
+     *
+     * @param width  Width of the icons to keep.
+     * @param height Height of the icons to keep.
+     */
+    public synchronized void evictOtherSizes(int width, int height) {
+        String suffix = "@" + width + "x" + height;
+        Iterator<String> keys = scaledIcons.keySet().iterator();
+        while (keys.hasNext()) {
+            if (!keys.next().endsWith(suffix))
+                keys.remove();
+        }
+    }
+
+    // Returns the decoded image of an icon path
+    private BufferedImage getSourceImage(String iconPath) throws IOException {
+        BufferedImage image = sourceImages.get(iconPath);
+        if (image == null) {
+            URL resource = getClass().getResource(iconPath);
+            if (resource == null)
+                throw new IOException("Missing image " + iconPath);
+            image = ImageIO.read(resource);
+            sourceImages.put(iconPath, image);
+        }
+        return image;
+    }
+
+    // Scales an image with bilinear steps of at most one half, which keeps downscaled piece icons
+    // smooth at a fraction of the cost of Image.SCALE_SMOOTH
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage image = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            // Halves each side while it is more than twice the target, then lands on the target
+            currentWidth = currentWidth / 2 > width ? currentWidth / 2 : width;
+            currentHeight = currentHeight / 2 > height ? currentHeight / 2 : height;
+
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = step.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(image, 0, 0, currentWidth, currentHeight, null);
+            g2d.dispose();
+            image = step;
+        } while (currentWidth != width || currentHeight != height);
+        return image;
+    }
+
+    // Creates a map that drops its least recently used entry beyond the given size
+    private static <V> Map<String, V> createLruMap(int maxEntries) {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
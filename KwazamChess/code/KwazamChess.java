@@ -3,6 +3,6 @@ public class KwazamChess {
 
     public static void main(String[] args) {
 
-        new ChessController(new ChessModel());
+        new ChessController(new GameEngine());
     }
 }
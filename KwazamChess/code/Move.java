@@ -0,0 +1,146 @@
+/**
+ * Helpers for moves packed into a single int, so move lists can live in plain int arrays.
+ *
+ * Layout (least significant bit first):
+ * - bits 0-5: square the piece moves from (row * COLUMNS + column)
+ * - bits 6-11: square the piece moves to
+ * - bits 12-14: type of the moving piece (BitBoard piece type code)
+ * - bits 15-17: type of the captured piece, or NO_CAPTURE
+ * - bits 18 and up: flags
+ *
+ * The same int is the move record of ChessModel's move history. A record is rendered as text,
+ * e.g. "Ram C7-C6" or "Tor A8xA4 (Biz) *", only when the history is shown or saved as text.
+ */
+public final class Move {
+    // Maximum number of moves a single piece can have on the 5x8 board (a Tor in the open has 11)
+    public static final int MAX_PIECE_MOVES = 16;
+
+    // Maximum number of moves a whole team can have in one position
+    public static final int MAX_MOVES = 128;
+
+    // Captured type stored when the destination square was empty
+    public static final int NO_CAPTURE = 7;
+
+    // Set when a Ram reaches the first or last row and turns around
+    public static final int FLAG_RAM_TURN = 1 << 18;
+
+    // Set on a history record when Tor and Xor transformed right after the move
+    public static final int FLAG_TOR_XOR_SWAP = 1 << 19;
+
+    // Set on a history record loaded from an old save, which only knows the destination square
+    public static final int FLAG_DESTINATION_ONLY = 1 << 20;
+
+    // Marks a Tor/Xor transformation in the text form of a record
+    private static final String SWAP_MARKER = " *";
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TYPE_MASK = 0x7;
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURE_SHIFT = 15;
+
+    private Move() {
+    }
+
+    // Packs a move into an int
+    public static int encode(int from, int to, int pieceType, int capturedType, int flags) {
+        return from | (to << TO_SHIFT) | (pieceType << PIECE_SHIFT) | (capturedType << CAPTURE_SHIFT) | flags;
+    }
+
+    // Returns the square the piece moves from
+    public static int getFrom(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    // Returns the square the piece moves to
+    public static int getTo(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    // Returns the type of the moving piece
+    public static int getPieceType(int move) {
+        return (move >>> PIECE_SHIFT) & TYPE_MASK;
+    }
+
+    // Returns the type of the captured piece, or NO_CAPTURE
+    public static int getCapturedType(int move) {
+        return (move >>> CAPTURE_SHIFT) & TYPE_MASK;
+    }
+
+    // Returns true if the move captures a piece
+    public static boolean isCapture(int move) {
+        return getCapturedType(move) != NO_CAPTURE;
+    }
+
+    // Returns true if the move has the given flag set
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    // Returns a history record that only knows the destination square
+    public static int destinationOnly(int to) {
+        return (to << TO_SHIFT) | FLAG_DESTINATION_ONLY;
+    }
+
+    /**
+     * Renders a move record as text, e.g. "Ram C7-C6" or "Tor A8xA4 (Biz) *".
+     * A record with only a destination is rendered as the square alone, e.g. "C3".
+     *
+     * @param move The packed move.
+     * @return The move in text form.
+     */
+    public static String toNotation(int move) {
+        String swap = hasFlag(move, FLAG_TOR_XOR_SWAP) ? SWAP_MARKER : "";
+        String to = Position.convertPositionToChessNotation(getTo(move));
+        if (hasFlag(move, FLAG_DESTINATION_ONLY))
+            return to + swap;
+        String from = Position.convertPositionToChessNotation(getFrom(move));
+        String text = PieceType.fromCode(getPieceType(move)).getName() + " " + from
+                + (isCapture(move) ? "x" : "-") + to;
+        if (isCapture(move))
+            text += " (" + PieceType.fromCode(getCapturedType(move)).getName() + ")";
+        return text + swap;
+    }
+
+    /**
+     * Parses the text form of a move record, as written by toNotation.
+     *
+     * @param notation The move in text form.
+     * @return The packed move.
+     * @throws IllegalArgumentException If the text is not a move.
+     */
+    public static int parseNotation(String notation) {
+        String text = notation.trim();
+        int flags = 0;
+        if (text.endsWith(SWAP_MARKER.trim())) {
+            flags |= FLAG_TOR_XOR_SWAP;
+            text = text.substring(0, text.length() - SWAP_MARKER.trim().length()).trim();
+        }
+        String[] parts = text.split(" ");
+        if (parts.length == 1)
+            return destinationOnly(parseSquare(parts[0])) | flags;
+
+        int pieceType = PieceType.fromName(parts[0]).getCode();
+        boolean capture = parts[1].indexOf('x') >= 0;
+        String[] squares = parts[1].split(capture ? "x" : "-");
+        if (squares.length != 2 || capture != (parts.length == 3))
+            throw new IllegalArgumentException("Invalid move: " + notation);
+        int from = parseSquare(squares[0]);
+        int to = parseSquare(squares[1]);
+        int capturedType = capture ? PieceType.fromName(parts[2].replace("(", "").replace(")", "")).getCode()
+                : NO_CAPTURE;
+
+        // A Ram turns around whenever it reaches the first or last row
+        int row = Position.of(to).getRow();
+        if (pieceType == BitBoard.RAM && (row == 0 || row == ChessBoard.ROWS - 1))
+            flags |= FLAG_RAM_TURN;
+        return encode(from, to, pieceType, capturedType, flags);
+    }
+
+    // Returns the square of a chess notation square such as "C3"
+    private static int parseSquare(String square) {
+        if (!square.matches("[A-E][1-8]"))
+            throw new IllegalArgumentException("Invalid square: " + square);
+        return Position.convertChessNotationToPosition(square);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Everything a single move changed in the ChessModel, so it can be taken back without
+ * keeping a snapshot of the whole board.
+ * ChessModel records one MoveDelta per move on its undo stack and moves it to the redo stack
+ * when the move is undone.
+ */
+public class MoveDelta {
+    private final int from; // Position index the piece moved from
+    private final int to; // Position index the piece moved to
+    private final Piece captured; // Piece that stood on the destination, or null
+    private final PlayerState state; // Player state before the move
+    private final int round; // Round counter before the move
+    private final int historyIndex; // Size of the move history before the move
+
+    // Direction and icon state of a moving Ram before the move (null for other pieces)
+    private String ramOperator;
+    private String ramFlipIconPath;
+    private String ramInitialIconPath;
+    private String ramIconPath;
+
+    private boolean transformed; // True if Tor and Xor transformed right after the move
+    private long transformedSquares; // Squares of the pieces transformed back by the last undo
+
+    public MoveDelta(int from, int to, Piece captured, PlayerState state, int round, int historyIndex) {
+        this.from = from;
+        this.to = to;
+        this.captured = captured;
+        this.state = state;
+        this.round = round;
+        this.historyIndex = historyIndex;
+    }
+
+    // Remembers the direction and icons of the moving Ram
+    public void saveRamState(Ram ram) {
+        ramOperator = ram.getNextPosOperator();
+        ramFlipIconPath = ram.getFlipIconPath();
+        ramInitialIconPath = ram.getInitialIconPath();
+        ramIconPath = ram.getIconPath();
+    }
+
+    // Puts back the direction and icons of the moving Ram
+    public void restoreRamState(Ram ram) {
+        ram.setNextPosOperator(ramOperator);
+        ram.setFlipIconPath(ramFlipIconPath);
+        ram.setInitialIconPath(ramInitialIconPath);
+        ram.setIconPath(ramIconPath);
+    }
+
+    // Returns true if the moving piece was a Ram
+    public boolean isRamMove() {
+        return ramOperator != null;
+    }
+
+    // Getters and setters
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public Piece getCaptured() {
+        return captured;
+    }
+
+    public PlayerState getState() {
+        return state;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getHistoryIndex() {
+        return historyIndex;
+    }
+
+    public boolean isTransformed() {
+        return transformed;
+    }
+
+    public void setTransformed(boolean transformed) {
+        this.transformed = transformed;
+    }
+
+    public long getTransformedSquares() {
+        return transformedSquares;
+    }
+
+    public void setTransformedSquares(long transformedSquares) {
+        this.transformedSquares = transformedSquares;
+    }
+}
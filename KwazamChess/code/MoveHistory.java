@@ -0,0 +1,57 @@
+import java.util.Arrays;
+
+/**
+ * The moves played in a game, as packed move records (see Move) in a growable int array.
+ * Records are turned into text only when asked for, e.g. when the move list is shown,
+ * so a long game costs four bytes per move.
+ */
+public class MoveHistory {
+    private int[] moves = new int[64]; // Packed move records, oldest first
+    private int size; // Number of records in use
+
+    // Appends a move record
+    public void add(int move) {
+        if (size == moves.length)
+            moves = Arrays.copyOf(moves, size * 2);
+        moves[size++] = move;
+    }
+
+    // Returns the move record at the given index
+    public int get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Move " + index + " of " + size);
+        return moves[index];
+    }
+
+    // Returns the text form of the move record at the given index
+    public String getNotation(int index) {
+        return Move.toNotation(get(index));
+    }
+
+    // Marks the last move as followed by a Tor/Xor transformation
+    public void markLastTransformed() {
+        if (size > 0)
+            moves[size - 1] |= Move.FLAG_TOR_XOR_SWAP;
+    }
+
+    // Removes every record from the given index on
+    public void truncate(int newSize) {
+        if (newSize < size)
+            size = Math.max(0, newSize);
+    }
+
+    // Removes every record
+    public void clear() {
+        size = 0;
+    }
+
+    // Returns the number of records
+    public int size() {
+        return size;
+    }
+
+    // Returns a copy of the records
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+}
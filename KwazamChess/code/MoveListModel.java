@@ -0,0 +1,59 @@
+import javax.swing.AbstractListModel;
+
+/**
+ * List model of the move list panel, a live view of the model's MoveHistory.
+ * The JList only asks for the rows it paints, so a row is rendered to text only while it is
+ * visible, and sync() tells the list about appended or removed moves instead of rebuilding it.
+ */
+public class MoveListModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+
+    private transient MoveHistory history = new MoveHistory(); // Moves shown by the list, not serialized
+    private int size; // Number of rows the list knows about
+
+    /**
+     * Brings the list up to date with a move history, firing events only for the rows that changed.
+     *
+     * @param moveHistory The history to show.
+     */
+    public void sync(MoveHistory moveHistory) {
+        if (moveHistory != history) {
+            // Another game: every row may differ
+            history = moveHistory;
+            clear();
+        }
+
+        int newSize = history.size();
+        int oldSize = size;
+        size = newSize;
+        if (newSize < oldSize)
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        else if (newSize > oldSize)
+            fireIntervalAdded(this, oldSize, newSize - 1);
+
+        // The last kept move may have been marked with a Tor/Xor transformation since it was shown
+        int lastKept = Math.min(oldSize, newSize) - 1;
+        if (lastKept >= 0)
+            fireContentsChanged(this, lastKept, lastKept);
+    }
+
+    // Removes every row
+    public void clear() {
+        int oldSize = size;
+        size = 0;
+        if (oldSize > 0)
+            fireIntervalRemoved(this, 0, oldSize - 1);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        if (index >= history.size())
+            return ""; // The history shrank and sync() has not been called yet
+        return index + 1 + ": " + history.getNotation(index);
+    }
+}
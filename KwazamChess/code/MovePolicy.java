@@ -0,0 +1,36 @@
+import java.util.SplittableRandom;
+
+/**
+ * Chooses the moves of one side in self-play (see SelfPlay).
+ * A policy instance is used by a single thread, so it may keep scratch state such as a search engine.
+ */
+public interface MovePolicy {
+    /**
+     * Chooses a move.
+     *
+     * @param engine The game, positioned on the side to move (must not be modified).
+     * @param moves  The legal moves.
+     * @param count  Number of legal moves, at least 1.
+     * @param random Random numbers of the game being played.
+     * @return One of the legal moves.
+     */
+    int chooseMove(GameEngine engine, int[] moves, int count, SplittableRandom random);
+
+    /**
+     * Creates a policy from its command-line name: "random", "greedy", or "search" with an
+     * optional depth such as "search:3".
+     *
+     * @param name The policy name.
+     * @return A new policy instance.
+     * @throws IllegalArgumentException If the name is unknown.
+     */
+    static MovePolicy create(String name) {
+        String[] parts = name.split(":");
+        return switch (parts[0]) {
+            case "random" -> new RandomPolicy();
+            case "greedy" -> new GreedyCapturePolicy();
+            case "search" -> new SearchPolicy(parts.length > 1 ? Integer.parseInt(parts[1]) : SearchPolicy.DEFAULT_DEPTH);
+            default -> throw new IllegalArgumentException("Unknown policy: " + name);
+        };
+    }
+}
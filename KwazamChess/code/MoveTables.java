@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+/**
+ * Move tables of every piece on every square of the fixed 5 x 8 board, computed once when the
+ * class is loaded, so generating moves needs no direction arithmetic and no bounds checks.
+ * Every table comes both as target lists in a fixed order, walked by the Piece classes, and as
+ * bitboard masks (see BitBoard), used by BitBoard and the search.
+ * The arrays are shared by every piece and board and must not be modified.
+ */
+public final class MoveTables {
+    // Index of the Ram step tables by direction: "-" (towards row 0) and "+" (towards the last row)
+    public static final int RAM_BACKWARD = 0;
+    public static final int RAM_FORWARD = 1;
+
+    // The directions (see BitBoard) a Tor and a Xor move in
+    static final int[] TOR_DIRECTIONS = { BitBoard.DOWN, BitBoard.RIGHT, BitBoard.UP, BitBoard.LEFT };
+    static final int[] XOR_DIRECTIONS = { BitBoard.DOWN_RIGHT, BitBoard.DOWN_LEFT, BitBoard.UP_RIGHT,
+            BitBoard.UP_LEFT };
+
+    // Squares a Biz (L-shaped jumps) and a Sau (one step in any direction) reach from each square
+    static final int[][] BIZ_TARGETS = new int[BitBoard.SQUARES][];
+    static final long[] BIZ_ATTACKS = new long[BitBoard.SQUARES];
+    static final int[][] SAU_TARGETS = new int[BitBoard.SQUARES][];
+    static final long[] SAU_ATTACKS = new long[BitBoard.SQUARES];
+
+    // RAM_STEPS[RAM_FORWARD][square] is the square in front of a Ram heading "+", or BitBoard.NONE
+    // at the edge; RAM_STEP_MASKS holds the same square as a one-bit board (0 at the edge)
+    static final int[][] RAM_STEPS = new int[2][BitBoard.SQUARES];
+    static final long[][] RAM_STEP_MASKS = new long[2][BitBoard.SQUARES];
+
+    // The first and last rows, where a Ram turns around
+    static final long END_ROWS = (1L << ChessBoard.COLUMNS) - 1
+            | ((1L << ChessBoard.COLUMNS) - 1) << (BitBoard.SQUARES - ChessBoard.COLUMNS);
+
+    // RAYS[dir][square] holds the squares along a ray, nearest first, RAY_MASKS[dir][square] the same squares
+    static final int[][][] RAYS = new int[BitBoard.DIRECTIONS][BitBoard.SQUARES][];
+    static final long[][] RAY_MASKS = new long[BitBoard.DIRECTIONS][BitBoard.SQUARES];
+
+    static {
+        // Offsets (row, column) of the Biz's L-shaped jumps
+        int[][] bizOffsets = {
+                { 2, 1 }, { 2, -1 }, { -2, 1 }, { -2, -1 },
+                { 1, 2 }, { 1, -2 }, { -1, 2 }, { -1, -2 }
+        };
+        for (int square = 0; square < BitBoard.SQUARES; square++) {
+            Position position = Position.of(square);
+            int row = position.getRow();
+            int column = position.getColumn();
+
+            int[] targets = new int[bizOffsets.length];
+            int count = 0;
+            for (int[] offset : bizOffsets) {
+                int targetRow = row + offset[0];
+                int targetColumn = column + offset[1];
+                if (targetRow >= 0 && targetRow < ChessBoard.ROWS && targetColumn >= 0
+                        && targetColumn < ChessBoard.COLUMNS)
+                    targets[count++] = Position.convertRowColumnToPosition(targetRow, targetColumn);
+            }
+            BIZ_TARGETS[square] = Arrays.copyOf(targets, count);
+            BIZ_ATTACKS[square] = mask(BIZ_TARGETS[square]);
+
+            targets = new int[BitBoard.DIRECTIONS];
+            count = 0;
+            for (int dir = 0; dir < BitBoard.DIRECTIONS; dir++) {
+                RAYS[dir][square] = position.getRay(dir);
+                RAY_MASKS[dir][square] = mask(RAYS[dir][square]);
+                if (position.getNeighbour(dir) != BitBoard.NONE)
+                    targets[count++] = position.getNeighbour(dir);
+            }
+            SAU_TARGETS[square] = Arrays.copyOf(targets, count);
+            SAU_ATTACKS[square] = mask(SAU_TARGETS[square]);
+
+            RAM_STEPS[RAM_BACKWARD][square] = position.getNeighbour(BitBoard.UP);
+            RAM_STEPS[RAM_FORWARD][square] = position.getNeighbour(BitBoard.DOWN);
+            for (int direction = RAM_BACKWARD; direction <= RAM_FORWARD; direction++) {
+                int target = RAM_STEPS[direction][square];
+                RAM_STEP_MASKS[direction][square] = target == BitBoard.NONE ? 0 : 1L << target;
+            }
+        }
+    }
+
+    private MoveTables() {
+    }
+
+    // Returns the bitboard of a list of squares
+    private static long mask(int[] squares) {
+        long mask = 0;
+        for (int square : squares)
+            mask |= 1L << square;
+        return mask;
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Opening book: moves played in self-play games from the ChessBoard() starting position, keyed by
+ * the Zobrist key of the position they were played in. The file is a sorted array of fixed-size
+ * records, memory-mapped and binary-searched, so a lookup costs about log2(records) reads and no
+ * parsing. While the game is in the book, the computer opponent plays a book move instead of
+ * searching, and SaveAnalyzer reports the book move instead of a search result.
+ *
+ * Layout (version 1), big-endian:
+ * - 4 bytes: magic "KWOB", 1 byte: format version, 3 reserved bytes
+ * - RECORD_SIZE records sorted by key, then by decreasing weight:
+ *   long Zobrist key, int packed move (see Move), int weight
+ *
+ * A move's weight is the points its side scored in the games it was played in, 2 for a win and
+ * 1 for a game without a winner, so moves that only ever lost are left out. Book moves are checked
+ * against the legal moves of the position, so a key collision can never play an illegal move.
+ *
+ * Usage: java OpeningBook <game archive> <book file> [plies] [min games]
+ * builds a book from the first plies of every game of an archive (see SelfPlay), keeping the moves
+ * played in at least min games, then prints the book move of the starting position.
+ * The bundled openings.book was built from 20000 games of search:2 against itself:
+ *   java SelfPlay 20000 search:2 search:2 - 8 400 games.kwa
+ *   java OpeningBook games.kwa openings.book
+ */
+public final class OpeningBook implements Closeable {
+    public static final int VERSION = 1;
+
+    // Book bundled with the game, a class path resource like the game's icons (see openDefault)
+    public static final String DEFAULT_FILE = "openings.book";
+
+    public static final int DEFAULT_PLIES = 12;
+    public static final int DEFAULT_MIN_GAMES = 8;
+
+    static final int RECORD_SIZE = 16;
+    private static final int RECORD_MOVE = 8;
+    private static final int RECORD_WEIGHT = 12;
+    private static final byte[] MAGIC = { 'K', 'W', 'O', 'B' };
+    private static final int HEADER_SIZE = 8;
+    private static final int WIN_POINTS = 2;
+    private static final int DRAW_POINTS = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer records;
+    private final int recordCount;
+
+    /**
+     * Opens a book.
+     *
+     * @param filename The book file.
+     * @throws IOException If the file cannot be read or is not a valid book.
+     */
+    public OpeningBook(String filename) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE)
+                throw new IOException("Not an opening book");
+            ByteBuffer header = GameArchive.read(channel, 0, HEADER_SIZE);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (header.get(i) != MAGIC[i])
+                    throw new IOException("Not an opening book");
+            }
+            int version = header.get(MAGIC.length) & 0xFF;
+            if (version != VERSION)
+                throw new IOException("Unsupported opening book version: " + version);
+            if ((size - HEADER_SIZE) % RECORD_SIZE != 0)
+                throw new IOException("Opening book is truncated");
+            recordCount = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+            records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size - HEADER_SIZE);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens the book bundled with the game, found on the class path next to the game's classes.
+     *
+     * @return The book, or null if the game has no book.
+     * @throws IOException If the book cannot be read or is not a valid book.
+     */
+    public static OpeningBook openDefault() throws IOException {
+        URL resource = OpeningBook.class.getResource(DEFAULT_FILE);
+        if (resource == null)
+            return null;
+        if (resource.getProtocol().equals("file")) {
+            try {
+                return new OpeningBook(Paths.get(resource.toURI()).toString());
+            } catch (URISyntaxException ex) {
+                throw new IOException("Invalid opening book location: " + resource, ex);
+            }
+        }
+
+        // A book inside a jar cannot be mapped, so it is copied to a temporary file first
+        Path copy = Files.createTempFile("kwazam", ".book");
+        copy.toFile().deleteOnExit();
+        try (InputStream input = resource.openStream()) {
+            Files.copy(input, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new OpeningBook(copy.toString());
+    }
+
+    // Returns the number of (position, move) records
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Picks a book move for the side to move of a position.
+     *
+     * @param board  The position.
+     * @param random Picks among the book moves in proportion to their weights, or null to always
+     *               play the move with the highest weight.
+     * @return The packed legal move, or SearchEngine.NO_MOVE if the position is not in the book.
+     */
+    public int chooseMove(BitBoard board, SplittableRandom random) {
+        int[] moves = new int[Move.MAX_MOVES];
+        int[] weights = new int[Move.MAX_MOVES];
+        int count = lookup(board, moves, weights);
+        if (count == 0)
+            return SearchEngine.NO_MOVE;
+        if (random == null)
+            return moves[0];
+        long totalWeight = 0;
+        for (int i = 0; i < count; i++)
+            totalWeight += weights[i];
+        long pick = random.nextLong(totalWeight);
+        for (int i = 0; i < count; i++) {
+            pick -= weights[i];
+            if (pick < 0)
+                return moves[i];
+        }
+        return moves[count - 1];
+    }
+
+    /**
+     * Writes the book moves of a position and their weights into the caller's buffers, by
+     * decreasing weight.
+     *
+     * @param board   The position.
+     * @param moves   Receives the packed legal moves, at least Move.MAX_MOVES entries.
+     * @param weights Receives the weight of each move, at least Move.MAX_MOVES entries.
+     * @return The number of book moves, 0 if the position is not in the book.
+     */
+    public int lookup(BitBoard board, int[] moves, int[] weights) {
+        int first = firstRecord(board.getKey());
+        if (first < 0)
+            return 0;
+
+        int[] legal = new int[Move.MAX_MOVES];
+        int legalCount = board.generateMoves(board.getSideToMove(), legal, 0);
+        int count = 0;
+        for (int record = first; record < recordCount && keyAt(record) == board.getKey(); record++) {
+            int move = findLegal(records.getInt(record * RECORD_SIZE + RECORD_MOVE), legal, legalCount);
+            if (move == SearchEngine.NO_MOVE)
+                continue;
+            moves[count] = move;
+            weights[count] = records.getInt(record * RECORD_SIZE + RECORD_WEIGHT);
+            count++;
+        }
+        return count;
+    }
+
+    // Returns the legal move with the origin and destination of a book move, or SearchEngine.NO_MOVE
+    private static int findLegal(int bookMove, int[] legal, int legalCount) {
+        for (int i = 0; i < legalCount; i++) {
+            if (Move.getFrom(legal[i]) == Move.getFrom(bookMove) && Move.getTo(legal[i]) == Move.getTo(bookMove))
+                return legal[i];
+        }
+        return SearchEngine.NO_MOVE;
+    }
+
+    // Binary search for the first record of a key, or -1 if there is none
+    private int firstRecord(long key) {
+        int low = 0;
+        int high = recordCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) < key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low < recordCount && keyAt(low) == key ? low : -1;
+    }
+
+    private long keyAt(int record) {
+        return records.getLong(record * RECORD_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Builds a book from the games of an archive. Games that do not start from the ChessBoard()
+     * starting position (their moves are not legal from it) are skipped from their first
+     * illegal move.
+     *
+     * @param archive  Games to learn from, such as a SelfPlay archive.
+     * @param filename The book file to write.
+     * @param plies    Number of plies of every game to learn.
+     * @param minGames Number of games a move must be played in to enter the book.
+     * @return The number of records written.
+     * @throws IOException If the book cannot be written.
+     */
+    public static int build(GameArchive archive, String filename, int plies, int minGames) throws IOException {
+        // Games and points of every move, per position key
+        Map<Long, Map<Integer, int[]>> positions = new HashMap<>();
+        ChessModel model = new ChessModel();
+        BitBoard start = new BitBoard();
+        start.copyFrom(model.getChessBoard().getBitBoard());
+        BitBoard board = new BitBoard();
+        int[] legal = new int[Move.MAX_MOVES];
+
+        for (int gameId = 0; gameId < archive.size(); gameId++) {
+            if (!model.loadGame(archive, gameId))
+                continue;
+            Team winner = model.determineWinner();
+            MoveHistory history = model.getMoveHistory();
+            board.copyFrom(start);
+            for (int ply = 0; ply < Math.min(plies, history.size()); ply++) {
+                // Moves of old saves only have their destination
+                if (Move.hasFlag(history.get(ply), Move.FLAG_DESTINATION_ONLY))
+                    break;
+                int legalCount = board.generateMoves(board.getSideToMove(), legal, 0);
+                int move = findLegal(history.get(ply), legal, legalCount);
+                if (move == SearchEngine.NO_MOVE)
+                    break;
+                int points = winner == null ? DRAW_POINTS : winner.getCode() == board.getSideToMove() ? WIN_POINTS : 0;
+                int[] stats = positions.computeIfAbsent(board.getKey(), key -> new HashMap<>())
+                        .computeIfAbsent(Move.encode(Move.getFrom(move), Move.getTo(move), Move.getPieceType(move),
+                                Move.getCapturedType(move), 0), key -> new int[2]);
+                stats[0]++;
+                stats[1] += points;
+                board.playMove(move);
+            }
+        }
+
+        List<long[]> entries = new ArrayList<>(); // { key, move, weight }
+        for (Map.Entry<Long, Map<Integer, int[]>> position : positions.entrySet()) {
+            for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                int[] stats = move.getValue();
+                if (stats[0] >= minGames && stats[1] > 0)
+                    entries.add(new long[] { position.getKey(), move.getKey(), stats[1] });
+            }
+        }
+        long[][] sorted = entries.toArray(new long[0][]);
+        Arrays.sort(sorted, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[2], a[2]));
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            output.write(MAGIC);
+            output.write(VERSION);
+            output.write(new byte[HEADER_SIZE - MAGIC.length - 1]);
+            for (long[] entry : sorted) {
+                output.writeLong(entry[0]);
+                output.writeInt((int) entry[1]);
+                output.writeInt((int) Math.min(entry[2], Integer.MAX_VALUE));
+            }
+        }
+        return sorted.length;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java OpeningBook <game archive> <book file> [plies] [min games]");
+            System.exit(2);
+        }
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLIES;
+        int minGames = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MIN_GAMES;
+
+        long begin = System.nanoTime();
+        int records;
+        int games;
+        try (GameArchive archive = new GameArchive(args[0])) {
+            games = archive.size();
+            records = build(archive, args[1], plies, minGames);
+        }
+        System.out.printf("%d records from %d games (%d plies, %d games per move) in %.2f s%n", records, games,
+                plies, minGames, (System.nanoTime() - begin) / 1e9);
+
+        try (OpeningBook book = new OpeningBook(args[1])) {
+            BitBoard start = new ChessModel().getChessBoard().getBitBoard();
+            int move = book.chooseMove(start, null);
+            System.out.println("Starting position: "
+                    + (move == SearchEngine.NO_MOVE ? "not in the book" : Move.toNotation(move)));
+        }
+    }
+}
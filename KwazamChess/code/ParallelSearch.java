@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP search: the calling thread and N - 1 helper threads search the same root position,
+ * sharing one TranspositionTable. Odd helpers search every iteration one ply deeper so the
+ * threads spread over different depths. Only the calling thread's result is used; the helpers
+ * just fill the shared table, and they are stopped as soon as the main search returns.
+ *
+ * Usage: java ParallelSearch [seconds per position] [max threads]
+ * reports nodes per second for 1, 2, 4, ... threads on the starting position and savegame.txt.
+ */
+public class ParallelSearch {
+    private final TranspositionTable table; // Shared by every thread
+    private final SearchEngine mainEngine; // Searched on the calling thread, its result wins
+    private final SearchEngine[] helpers; // One engine per helper thread
+    private final ExecutorService executor; // Runs the helpers, null with a single thread
+
+    private long nodes; // Nodes searched by all threads in the last call
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param threads        Total number of search threads, including the calling thread.
+     * @param tableMegabytes Size of the shared transposition table in MB.
+     */
+    public ParallelSearch(int threads, int tableMegabytes) {
+        table = new TranspositionTable(tableMegabytes);
+        mainEngine = new SearchEngine(table);
+        helpers = new SearchEngine[Math.max(0, threads - 1)];
+        for (int i = 0; i < helpers.length; i++)
+            helpers[i] = new SearchEngine(table);
+        executor = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true); // Helpers never keep the application alive
+            return thread;
+        });
+    }
+
+    /**
+     * Finds the best move for the side to move using every search thread.
+     *
+     * @param root         The position to search (not modified).
+     * @param budgetMillis Hard time limit for the whole search.
+     * @param maxDepth     Deepest iteration to run.
+     * @return The packed best move of the main thread, or SearchEngine.NO_MOVE if there is none.
+     */
+    public int findBestMove(BitBoard root, long budgetMillis, int maxDepth) {
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < helpers.length; i++) {
+            SearchEngine helper = helpers[i];
+            int depthOffset = (i + 1) % 2;
+            helper.clearStop();
+            running.add(executor.submit(() -> helper.findBestMove(root, budgetMillis, maxDepth, depthOffset)));
+        }
+
+        int bestMove = mainEngine.findBestMove(root, budgetMillis, maxDepth);
+
+        // The main thread is done, the helpers' work is no longer needed
+        for (SearchEngine helper : helpers)
+            helper.stop();
+        nodes = mainEngine.getNodes();
+        for (int i = 0; i < running.size(); i++) {
+            try {
+                running.get(i).get();
+            } catch (Exception ex) {
+                System.err.println("Search helper failed: " + ex.getMessage());
+            }
+            nodes += helpers[i].getNodes();
+        }
+        return bestMove;
+    }
+
+    /**
+     * Finds the best move for the side to move within the default time budget.
+     *
+     * @param root The position to search (not modified).
+     * @return The packed best move, or SearchEngine.NO_MOVE if there is none.
+     */
+    public int findBestMove(BitBoard root) {
+        return findBestMove(root, SearchEngine.DEFAULT_TIME_BUDGET_MILLIS, SearchEngine.MAX_PLY);
+    }
+
+    // Returns the nodes searched by all threads in the last call
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Returns the deepest iteration finished by the main thread in the last call
+    public int getCompletedDepth() {
+        return mainEngine.getCompletedDepth();
+    }
+
+    // Returns the score of the best move of the last call
+    public int getBestScore() {
+        return mainEngine.getBestScore();
+    }
+
+    // Returns the total number of search threads
+    public int getThreadCount() {
+        return helpers.length + 1;
+    }
+
+    // Returns the shared transposition table
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    // Stops the helper threads
+    public void shutdown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    public static void main(String[] args) {
+        long budgetMillis = (args.length > 0 ? Long.parseLong(args[0]) : 5) * 1000L;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        ChessModel start = new ChessModel();
+        ChessModel saved = new ChessModel();
+        if (!saved.loadGame("savegame.txt"))
+            saved = null;
+
+        System.out.println("threads  nodes/s  speedup  depth(start)  depth(savegame)");
+        double baseline = 0;
+        for (int threads = 1;; threads = Math.min(threads * 2, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads, 256);
+            long totalNodes = 0;
+            long totalNanos = 0;
+            int[] depths = new int[2];
+            ChessModel[] models = { start, saved };
+            for (int i = 0; i < models.length; i++) {
+                if (models[i] == null)
+                    continue;
+                search.getTable().clear();
+                long begin = System.nanoTime();
+                search.findBestMove(models[i].getChessBoard().getBitBoard(), budgetMillis, SearchEngine.MAX_PLY);
+                totalNanos += System.nanoTime() - begin;
+                totalNodes += search.getNodes();
+                depths[i] = search.getCompletedDepth();
+            }
+            search.shutdown();
+
+            double nodesPerSecond = totalNodes * 1e9 / totalNanos;
+            if (threads == 1)
+                baseline = nodesPerSecond;
+            System.out.printf("%7d  %7.0f  %7.2f  %12d  %15d%n", threads, nodesPerSecond,
+                    nodesPerSecond / baseline, depths[0], depths[1]);
+            if (threads == maxThreads)
+                break;
+        }
+    }
+}
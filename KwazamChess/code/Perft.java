@@ -0,0 +1,142 @@
+import java.io.PrintStream;
+
+/**
+ * Perft (performance test) for Kwazam positions.
+ * Counts every move path of a given depth from a position, following the real game rules:
+ * Rams turn around at the board edge, Tor and Xor transform every two rounds and the game
+ * ends as soon as a Sau is captured (positions after a Sau capture have no further moves).
+ *
+ * Moves are made and unmade on a single board, so the search never copies a position.
+ * The node counts validate move generation against the reference counts below, and the
+ * nodes per second reported by main track move-generation throughput.
+ *
+ * Usage:
+ * - java Perft [depth] [save file] : divide from the starting position or a save file
+ * - java Perft verify : checks the reference counts
+ */
+public class Perft {
+    // Reference node counts from the ChessBoard() starting position, index = depth
+    static final long[] START_POSITION_COUNTS = { 1L, 9L, 81L, 855L, 9022L, 109234L, 1320409L };
+
+    // Reference node counts from the bundled savegame.txt, index = depth
+    static final long[] SAVEGAME_COUNTS = { 1L, 9L, 72L, 760L, 7505L, 90818L, 1027891L };
+
+    private final BitBoard board; // Position being searched, moves are made and unmade on it
+    private final int[][] moves; // One move buffer per ply
+
+    /**
+     * Creates a perft search rooted at a bitboard position.
+     *
+     * @param root     The root position (not modified).
+     * @param maxDepth The deepest depth that will be searched.
+     */
+    public Perft(BitBoard root, int maxDepth) {
+        board = new BitBoard();
+        board.copyFrom(root);
+        moves = new int[maxDepth + 1][Move.MAX_MOVES];
+    }
+
+    /**
+     * Creates a perft search rooted at the current position of a model.
+     *
+     * @param model    The model whose position is searched.
+     * @param maxDepth The deepest depth that will be searched.
+     */
+    public Perft(ChessModel model, int maxDepth) {
+        this(model.getChessBoard().getBitBoard(), maxDepth);
+    }
+
+    /**
+     * Counts the move paths of the given depth from the root.
+     *
+     * @param depth The number of plies.
+     * @return The number of leaf nodes.
+     */
+    public long perft(int depth) {
+        return perft(0, depth);
+    }
+
+    /**
+     * Counts the move paths below each root move and prints them.
+     *
+     * @param depth The number of plies (at least 1).
+     * @param out   Where each root move and its count is printed.
+     * @return The total number of leaf nodes.
+     */
+    public long divide(int depth, PrintStream out) {
+        int count = board.isGameOver() ? 0 : board.generateMoves(board.getSideToMove(), moves[0], 0);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[0][i];
+            long undo = board.makeMove(move);
+            long nodes = perft(1, depth);
+            board.unmakeMove(move, undo);
+            out.println(Position.convertPositionToChessNotation(Move.getFrom(move)) + "-"
+                    + Position.convertPositionToChessNotation(Move.getTo(move)) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    // Counts the leaves below the board at the given ply
+    private long perft(int ply, int depth) {
+        if (ply == depth)
+            return 1;
+        if (board.isGameOver())
+            return 0;
+        int[] buffer = moves[ply];
+        int count = board.generateMoves(board.getSideToMove(), buffer, 0);
+        if (ply + 1 == depth)
+            return count; // Bulk count at the last ply
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            long undo = board.makeMove(buffer[i]);
+            nodes += perft(ply + 1, depth);
+            board.unmakeMove(buffer[i], undo);
+        }
+        return nodes;
+    }
+
+    // Checks the perft counts of a model against reference counts, returns true if all match
+    private static boolean verify(String name, ChessModel model, long[] expected) {
+        boolean ok = true;
+        for (int depth = 1; depth < expected.length; depth++) {
+            long start = System.nanoTime();
+            long nodes = new Perft(model, depth).perft(depth);
+            long elapsed = System.nanoTime() - start;
+            boolean match = nodes == expected[depth];
+            ok &= match;
+            System.out.printf("%s depth %d: %d (expected %d) %s, %d nodes/s%n", name, depth, nodes,
+                    expected[depth], match ? "OK" : "MISMATCH", nodesPerSecond(nodes, elapsed));
+        }
+        return ok;
+    }
+
+    // Converts a node count and elapsed nanoseconds to nodes per second
+    private static long nodesPerSecond(long nodes, long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("verify")) {
+            ChessModel saved = new ChessModel();
+            boolean ok = verify("start", new ChessModel(), START_POSITION_COUNTS);
+            if (saved.loadGame("savegame.txt"))
+                ok &= verify("savegame.txt", saved, SAVEGAME_COUNTS);
+            else
+                ok = false;
+            System.exit(ok ? 0 : 1);
+        }
+
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        ChessModel model = new ChessModel();
+        if (args.length > 1 && !model.loadGame(args[1]))
+            System.exit(1);
+
+        long start = System.nanoTime();
+        long nodes = new Perft(model, depth).divide(depth, System.out);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Nodes: %d%nTime: %d ms%nNodes/s: %d%n", nodes, elapsed / 1_000_000,
+                nodesPerSecond(nodes, elapsed));
+    }
+}
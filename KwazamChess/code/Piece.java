@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 // Abstract class(Parent class) representing a game piece on the board
 // Inherited by child classes(Ram,Biz,Sau,Tor,Xor)
 // Ow Ka Sheng
@@ -7,25 +5,32 @@ public abstract class Piece {
 
     // Instance variables representing the position, team, icon path, and possible moves of the piece
     protected Position position; // The current position of the piece on the board
-    protected String team; // The team (e.g., "Red", "Blue") the piece belongs to
+    protected Team team; // The team (Team.RED or Team.BLUE) the piece belongs to
     protected String iconPath; // The icon file path representing the piece
-    protected ArrayList<int[]> possibleNextMove; // List of possible moves for the piece
+    protected int[] possibleNextMove; // Packed possible moves for the piece (see Move)
+    protected int possibleNextMoveCount; // Number of entries used in possibleNextMove
 
     // Constructor to initialize the piece with its position, team, and icon path
-    public Piece(Position position, String team, String iconPath) {
+    public Piece(Position position, Team team, String iconPath) {
         this.position = position; // Set the position of the piece
         this.team = team; // Set the team of the piece
         this.iconPath = iconPath; // Set the icon path representing the piece
-        this.possibleNextMove = new ArrayList<int[]>(); // Initialize the list for possible moves
+        this.possibleNextMove = new int[Move.MAX_PIECE_MOVES]; // Buffer reused for every move generation
+    }
+
+    // Method to get the packed valid (possible) moves for the piece
+    // Only the first getValidMoveCount() entries are valid
+    public int[] getValidMoves() {
+        return possibleNextMove; // Return the buffer of valid moves
     }
 
-    // Method to get the list of valid (possible) moves for the piece
-    public ArrayList<int[]> getValidMoves() {
-        return possibleNextMove; // Return the list of valid moves
+    // Method to get the number of valid moves stored in getValidMoves()
+    public int getValidMoveCount() {
+        return possibleNextMoveCount;
     }
 
     // Getter method to return the team of the piece
-    public String getTeam() {
+    public Team getTeam() {
         return team; // Return the team of the piece
     }
 
@@ -51,10 +56,32 @@ public abstract class Piece {
 
     // Method to move the piece to a new position based on the given move (nextMove)
     public Position move(int nextMove) {
-        this.position = new Position(nextMove); // Update the position to the new position
+        this.position = Position.of(nextMove); // Update the position to the shared instance of the new position
         return this.position; // Return the new position
     }
 
-    // Abstract method to set the valid moves for a specific piece
-    public abstract void setCurrentValidMoves(Piece[][] board);
+    // Method to set the valid moves for the piece into its own move buffer
+    public void setCurrentValidMoves(Piece[][] board) {
+        possibleNextMoveCount = generateMoves(board, possibleNextMove, 0);
+    }
+
+    // Abstract method writing the packed valid moves of a specific piece into the caller's buffer
+    // starting at index count, and returning the new number of moves in the buffer
+    public abstract int generateMoves(Piece[][] board, int[] moves, int count);
+
+    // Abstract method returning the piece type code (see BitBoard)
+    public abstract int getPieceType();
+
+    // Method to append a move to a square to the buffer unless the square holds a piece of the same team
+    // Returns the new number of moves in the buffer
+    protected int addMove(Piece[][] board, int[] moves, int count, int to, int flags) {
+        Position targetPosition = Position.of(to);
+        Piece target = board[targetPosition.getRow()][targetPosition.getColumn()];
+        if (target != null && target.team == team)
+            return count;
+        int from = position.getIndex();
+        int captured = target == null ? Move.NO_CAPTURE : target.getPieceType();
+        moves[count] = Move.encode(from, to, getPieceType(), captured, flags);
+        return count + 1;
+    }
 }
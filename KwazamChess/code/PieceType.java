@@ -0,0 +1,55 @@
+/**
+ * The five piece types. Their codes are the type codes of BitBoard and Move, which the move
+ * generation and the search use; the name ("Ram", "Biz", ...) is only used where text is shown
+ * or written: the icon file names, the move notation and the save files.
+ */
+public enum PieceType {
+    RAM("Ram"), // BitBoard.RAM
+    BIZ("Biz"), // BitBoard.BIZ
+    TOR("Tor"), // BitBoard.TOR
+    XOR("Xor"), // BitBoard.XOR
+    SAU("Sau"); // BitBoard.SAU
+
+    private static final PieceType[] BY_CODE = values();
+
+    private final String name;
+
+    PieceType(String name) {
+        this.name = name;
+    }
+
+    // Returns the type code used by BitBoard and Move
+    public int getCode() {
+        return ordinal();
+    }
+
+    // Returns the name used in icons, notation and save files
+    public String getName() {
+        return name;
+    }
+
+    // Returns the piece type of a type code
+    public static PieceType fromCode(int code) {
+        return BY_CODE[code];
+    }
+
+    /**
+     * Returns the piece type of a name, as read from a save file.
+     *
+     * @param name "Ram", "Biz", "Tor", "Xor" or "Sau".
+     * @return The piece type.
+     * @throws IllegalArgumentException If the name is not a piece name.
+     */
+    public static PieceType fromName(String name) {
+        for (PieceType type : BY_CODE) {
+            if (type.name.equals(name))
+                return type;
+        }
+        throw new IllegalArgumentException("Invalid piece type: " + name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
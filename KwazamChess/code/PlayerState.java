@@ -11,6 +11,6 @@ interface PlayerState {
 
     void playMove(ChessModel context, int position);
 
-    String getTeam();
+    Team getTeam();
 
 }
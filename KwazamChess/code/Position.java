@@ -1,33 +1,81 @@
 /**
  * Represents the position of a piece on the chessboard.
  * The position can be represented in terms of row-column or as a single index. (on view)
+ *
+ * Positions are immutable flyweights: the 40 instances are created once, with their row,
+ * column, chess notation and the neighbouring squares and rays in every direction, and shared
+ * by every piece, move and lookup. Converting between an index and a row and column therefore
+ * allocates nothing and needs no division.
  */
 // Ow Ka Sheng
-public class Position {
-    private int row; // The row index of the position on the board.
-    private int column; // The column index of the position on the board.
+public final class Position {
+    // Row and column steps of the 8 directions, in the order of the direction codes of BitBoard
+    // (Down, Right, Up, Left, Down-Right, Down-Left, Up-Right, Up-Left)
+    private static final int[] DIRECTION_ROW = { 1, 0, -1, 0, 1, 1, -1, -1 };
+    private static final int[] DIRECTION_COL = { 0, 1, 0, -1, 1, -1, 1, -1 };
+
+    // The shared instances by index
+    private static final Position[] POSITIONS = new Position[BitBoard.SQUARES];
+
+    static {
+        for (int row = 0, index = 0; row < ChessBoard.ROWS; row++) {
+            for (int column = 0; column < ChessBoard.COLUMNS; column++, index++)
+                POSITIONS[index] = new Position(index, row, column);
+        }
+    }
+
+    private final int index; // The index of the position on the board view (row * COLUMNS + column).
+    private final int row; // The row index of the position on the board.
+    private final int column; // The column index of the position on the board.
+    private final String notation; // The position in chess notation, e.g. "A8".
+    private final int[] neighbours; // Index of the adjacent square per direction, or BitBoard.NONE
+    private final int[][] rays; // Indices of the squares per direction, nearest first, up to the edge
 
     /**
-     * Constructor to create a Position from a single integer index.
+     * Creates one of the shared instances.
      *
-     * @param pos The index representing the position on the board view.
-     *            It is converted to row and column using board dimensions.
+     * @param index  The index of the position.
+     * @param row    The row index of the position.
+     * @param column The column index of the position.
      */
-    public Position(int pos) {
-        int[] rowColumn = convertPositionToRowColumn(pos);
-        this.row = rowColumn[0];
-        this.column = rowColumn[1];
+    private Position(int index, int row, int column) {
+        this.index = index;
+        this.row = row;
+        this.column = column;
+        // Columns are letters from A, rows are numbered from 8 at the top (e.g., 0,0 -> A8).
+        this.notation = (char) ('A' + column) + String.valueOf(ChessBoard.ROWS - row);
+        this.neighbours = new int[DIRECTION_ROW.length];
+        this.rays = new int[DIRECTION_ROW.length][];
+        for (int dir = 0; dir < DIRECTION_ROW.length; dir++) {
+            int length = 0;
+            int[] ray = new int[ChessBoard.ROWS];
+            for (int r = row + DIRECTION_ROW[dir], c = column + DIRECTION_COL[dir]; isOnBoard(r, c);
+                    r += DIRECTION_ROW[dir], c += DIRECTION_COL[dir])
+                ray[length++] = convertRowColumnToPosition(r, c);
+            this.rays[dir] = java.util.Arrays.copyOf(ray, length);
+            this.neighbours[dir] = length > 0 ? ray[0] : BitBoard.NONE;
+        }
     }
 
     /**
-     * Constructor to create a Position from row and column indices.
+     * Returns the position of an index.
+     *
+     * @param index The index of the position on the board view.
+     * @return The shared Position instance.
+     */
+    public static Position of(int index) {
+        return POSITIONS[index];
+    }
+
+    /**
+     * Returns the position of a row and column.
      *
      * @param row    The row index of the position.
      * @param column The column index of the position.
+     * @return The shared Position instance.
      */
-    public Position(int row, int column) {
-        this.row = row;
-        this.column = column;
+    public static Position of(int row, int column) {
+        return POSITIONS[convertRowColumnToPosition(row, column)];
     }
 
     /**
@@ -37,18 +85,22 @@ public class Position {
      * @return The position in chess notation format.
      */
     public static String convertPositionToChessNotation(int position) {
-        // Calculate the column index from the position.
-        int column = position % ChessBoard.COLUMNS;
-        // Calculate the row index from the position.
-        int row = position / ChessBoard.COLUMNS;
-
-        // Convert the column index to a letter (e.g., 0 -> A, 1 -> B).
-        char columnChar = (char) ('A' + column);
-        // Convert the row index to a chessboard row number (e.g., 0 -> 8, 1 -> 7).
-        int rowNumber = 8 - row;
-
-        // Return the chess notation as a string.
-        return columnChar + String.valueOf(rowNumber);
+        return POSITIONS[position].notation;
+    }
+
+    /**
+     * Converts chessboard notation (e.g., A1, B2) back to a position index.
+     *
+     * @param notation The position in chess notation format.
+     * @return The index of the position on the board.
+     */
+    public static int convertChessNotationToPosition(String notation) {
+        // Convert the letter back to a column index (e.g., A -> 0, B -> 1).
+        int column = notation.charAt(0) - 'A';
+        // Convert the chessboard row number back to a row index (e.g., 8 -> 0, 7 -> 1).
+        int row = 8 - Integer.parseInt(notation.substring(1));
+
+        return convertRowColumnToPosition(row, column);
     }
 
     /**
@@ -63,19 +115,18 @@ public class Position {
         return row * ChessBoard.COLUMNS + column;
     }
 
+    // Returns true if the row and column are inside the board
+    private static boolean isOnBoard(int row, int column) {
+        return row >= 0 && row < ChessBoard.ROWS && column >= 0 && column < ChessBoard.COLUMNS;
+    }
+
     /**
-     * Converts a single position index into row and column indices.
+     * Getter for the index of the position.
      *
-     * @param position The index of the position on the board.
-     * @return An array containing row and column indices.
+     * @return The index of the position on the board view.
      */
-    public static int[] convertPositionToRowColumn(int position) {
-        // Calculate the column index from the position.
-        int column = position % ChessBoard.COLUMNS;
-        // Calculate the row index from the position.
-        int row = position / ChessBoard.COLUMNS;
-        // Return the row and column as an array.
-        return new int[] { row, column };
+    public int getIndex() {
+        return index;
     }
 
     /**
@@ -95,4 +146,39 @@ public class Position {
     public int getColumn() {
         return column;
     }
+
+    /**
+     * Getter for the chess notation of the position.
+     *
+     * @return The position in chess notation format (e.g., A8).
+     */
+    public String getNotation() {
+        return notation;
+    }
+
+    /**
+     * Returns the adjacent square in a direction.
+     *
+     * @param direction A direction code of BitBoard (BitBoard.DOWN to BitBoard.UP_LEFT).
+     * @return The index of the adjacent square, or BitBoard.NONE at the edge of the board.
+     */
+    public int getNeighbour(int direction) {
+        return neighbours[direction];
+    }
+
+    /**
+     * Returns the squares in a direction, nearest first, up to the edge of the board.
+     * The array is shared and must not be modified.
+     *
+     * @param direction A direction code of BitBoard (BitBoard.DOWN to BitBoard.UP_LEFT).
+     * @return The indices of the squares on the ray.
+     */
+    public int[] getRay(int direction) {
+        return rays[direction];
+    }
+
+    @Override
+    public String toString() {
+        return notation;
+    }
 }
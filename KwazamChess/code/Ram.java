@@ -13,17 +13,17 @@ public class Ram extends Piece implements IconPathProvider {
      * Constructor for the Ram class.
      * 
      * @param position The initial position of the Ram on the chessboard.
-     * @param team     The team to which the Ram belongs ("Red" or another team).
+     * @param team     The team to which the Ram belongs (Team.RED or Team.BLUE).
      */
-    public Ram(Position position, String team) {
+    public Ram(Position position, Team team) {
         // Call the parent class constructor and set the initial icon path.
-        super(position, team, "src/" + team + "_Ram.png");
+        super(position, team, "src/" + team.getName() + "_Ram.png");
         // Set the direction operator based on the team (Red moves "+" direction, others
         // "-").
-        this.nextPosOperator = team.equals("Red") ? "+" : "-";
+        this.nextPosOperator = team == Team.RED ? "+" : "-";
         // Set the paths for the flipped and initial icons.
-        this.flipIconPath = "src/" + team + "_Ram_Rotated.png";
-        this.initialIconPath = "src/" + team + "_Ram.png";
+        this.flipIconPath = "src/" + team.getName() + "_Ram_Rotated.png";
+        this.initialIconPath = "src/" + team.getName() + "_Ram.png";
         int row = position.getRow();
         // Update the movement direction and icon based on the initial position's row.
         updateDirection(row);
@@ -57,25 +57,34 @@ public class Ram extends Piece implements IconPathProvider {
     }
 
     /**
-     * Sets the valid moves for the Ram based on its current position and the board
+     * Writes the valid moves for the Ram based on its current position and the board
      * state.
      * 
      * @param board The chessboard represented as a 2D array of Piece objects.
+     * @param moves The caller's buffer receiving the packed moves.
+     * @param count The number of moves already in the buffer.
+     * @return The new number of moves in the buffer.
      */
     @Override
-    public void setCurrentValidMoves(Piece[][] board) {
-        // Clear the list of possible moves before calculating new ones.
-        possibleNextMove.clear();
+    public int generateMoves(Piece[][] board, int[] moves, int count) {
+        // Look up the square in front of the Ram based on the direction operator.
+        int direction = nextPosOperator.equals("-") ? MoveTables.RAM_BACKWARD : MoveTables.RAM_FORWARD;
+        int next = MoveTables.RAM_STEPS[direction][position.getIndex()];
 
-        int row = position.getRow();
-        int column = position.getColumn();
-        // Determine the next row based on the direction operator.
-        int nextRow = nextPosOperator.equals("-") ? row - 1 : row + 1;
+        // There is no square in front of the Ram past the edge of the board.
+        if (next != BitBoard.NONE) {
+            // Flag the move if the Ram turns around on the destination row
+            int flags = (MoveTables.END_ROWS & (1L << next)) != 0 ? Move.FLAG_RAM_TURN : 0;
+            // Add to next move buffer
+            count = addMove(board, moves, count, next, flags);
+        }
+        return count;
+    }
 
-        // Check if the next position is within the board boundaries.
-        if (isWithinBounds(nextRow, column, board.length, board[0].length))
-            // Add to next move list
-            possibleNextMove.add(new int[] { nextRow, column });
+    // Returns the piece type code of the Ram
+    @Override
+    public int getPieceType() {
+        return BitBoard.RAM;
     }
 
     // Setter methods for updating specific properties.
@@ -91,19 +100,6 @@ public class Ram extends Piece implements IconPathProvider {
         this.initialIconPath = initialIconPath;
     }
 
-    /**
-     * Checks if a given position is within the board boundaries.
-     * 
-     * @param row    The row index to check.
-     * @param column The column index to check.
-     * @param maxRow The maximum number of rows on the board.
-     * @param maxCol The maximum number of columns on the board.
-     * @return True if the position is within bounds, false otherwise.
-     */
-    private boolean isWithinBounds(int row, int column, int maxRow, int maxCol) {
-        return row >= 0 && row < maxRow && column >= 0 && column < maxCol;
-    }
-
     /**
      * Moves the Ram to a new position and updates its direction and icon paths
      * accordingly.
@@ -0,0 +1,9 @@
+import java.util.SplittableRandom;
+
+// Self-play policy playing a uniformly random legal move
+public class RandomPolicy implements MovePolicy {
+    @Override
+    public int chooseMove(GameEngine engine, int[] moves, int count, SplittableRandom random) {
+        return moves[random.nextInt(count)];
+    }
+}
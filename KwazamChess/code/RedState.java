@@ -9,7 +9,7 @@
  * Methods:
  * - playMove(ChessModel context, int position): Changes the state to BlueState after a move is played,
  *   updates the chess board, and tracks the round.
- * - getTeam(): Returns the team name "Red".
+ * - getTeam(): Returns Team.RED.
  * 
  * Relationships:
  * - RedState is a concrete implementation of the PlayerState interface.
@@ -31,7 +31,7 @@ public class RedState implements PlayerState {
 
     // Override getTeam method
     @Override
-    public String getTeam() {
-        return "Red";
+    public Team getTeam() {
+        return Team.RED;
     }
 }
@@ -9,45 +9,29 @@ public class Sau extends Piece implements IconPathProvider {
      * Constructor for the Sau class.
      * Initializes the Sau piece with its position and team.
      */
-    public Sau(Position position, String team, boolean isFlipped) {
-        super(position, team, "src/" + team + "_Sau.png");
-        this.flipIconPath = "src/" + team + "_Sau_Rotated.png";
-        this.initialIconPath = "src/" + team + "_Sau.png";
+    public Sau(Position position, Team team, boolean isFlipped) {
+        super(position, team, "src/" + team.getName() + "_Sau.png");
+        this.flipIconPath = "src/" + team.getName() + "_Sau_Rotated.png";
+        this.initialIconPath = "src/" + team.getName() + "_Sau.png";
         if (isFlipped)
             this.iconPath = flipIconPath;
     }
 
-    // This method overrides the setCurrentValidMoves method in the Piece class.
+    // This method overrides the generateMoves method in the Piece class.
     @Override
-    public void setCurrentValidMoves(Piece[][] board) {
-        possibleNextMove.clear(); // clear previous move
-        int[][] possibleMoves = {
-                { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }, // Horizontal and vertical moves
-                { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } // Diagonal moves
-        };
-
-        // Validate each potential move
-        for (int[] moves : possibleMoves) {
-            int targetX = position.getColumn() + moves[0];
-            int targetY = position.getRow() + moves[1];
-
-            if (isWithinBoard(targetX, targetY) && isEmpty(targetY, targetX, board)) {
-                possibleNextMove.add(new int[] { targetY, targetX });
-
-            }
+    public int generateMoves(Piece[][] board, int[] moves, int count) {
+        // Every step in the 8 directions that stays on the board, precomputed for each square
+        // (addMove skips squares holding a piece of the same team)
+        for (int target : MoveTables.SAU_TARGETS[position.getIndex()]) {
+            count = addMove(board, moves, count, target, 0);
         }
+        return count;
     }
 
-    // This method checks if the target position is within the board limits.
-    private boolean isWithinBoard(int x, int y) {
-        return x >= 0 && x < ChessBoard.COLUMNS && y >= 0 && y < ChessBoard.ROWS;
-    }
-
-    // This method checks if the target position is empty or occupied by an
-    // opponent's piece.
-    private boolean isEmpty(int row, int col, Piece[][] board) {
-        Piece targetPiece = board[row][col];
-        return targetPiece == null || !targetPiece.getTeam().equals(this.team);
+    // Returns the piece type code of the Sau
+    @Override
+    public int getPieceType() {
+        return BitBoard.SAU;
     }
 
     // Getter methods for retrieving specific properties.
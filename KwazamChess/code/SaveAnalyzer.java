@@ -0,0 +1,283 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Command-line analyzer of a directory of save files (text saves from ChessModel.saveGame or
+ * binary saves, searched recursively). Every save is loaded, and one CSV or JSON line is written
+ * for it: the side to move, the number of legal moves, the material balance, whether the side to
+ * move's Sau is attacked and the engine's evaluation and best move.
+ *
+ * Files are listed lazily and handed to a fixed pool of workers, each with its own model and
+ * search engine. At most IN_FLIGHT_PER_THREAD files per worker are queued or being analyzed: the
+ * directory walk waits for a worker to finish before listing the next file, so memory stays flat
+ * whatever the size of the directory. Lines are written in completion order.
+ *
+ * Usage: java SaveAnalyzer <directory> [csv|json] [threads] [depth] [output file, - for stdout]
+ *        [opening book, - for none]
+ * The opening book defaults to the one bundled with the game (see OpeningBook.openDefault).
+ *
+ * Columns:
+ * - file, status (ok or error: the save could not be loaded)
+ * - turn (Blue or Red), round, plies (moves in the move history)
+ * - moves: legal moves of the side to move, 0 once the game is over
+ * - material: value of Blue's pieces minus Red's, Saus excluded (SearchEngine.PIECE_VALUES)
+ * - sauAttacked: true if an opponent's piece can capture the side to move's Sau
+ * - winner: Blue, Red or empty while the game runs
+ * - eval: search score at the given depth, positive when Blue is better, or the static evaluation
+ *   (SearchEngine.evaluate) once the game is over. Empty (null in JSON) for positions in the
+ *   opening book, which are not searched
+ * - bestMove: the move found by the search, such as "Biz D4-C6", empty once the game is over or
+ *   when the position is in the opening book
+ * - bookMove, bookWeight: the opening book move with the highest weight and its weight, empty if
+ *   the position is not in the book
+ */
+public class SaveAnalyzer {
+    // Queued and running files per worker, enough to keep every worker busy
+    private static final int IN_FLIGHT_PER_THREAD = 2;
+    private static final long BUDGET_MILLIS = 60_000;
+    private static final int TABLE_MEGABYTES = 4;
+
+    private static final String CSV_HEADER = "file,status,turn,round,plies,moves,material,sauAttacked,winner,eval,bestMove,bookMove,bookWeight";
+
+    private final boolean json; // JSON lines instead of CSV
+    private final int depth; // Search depth of the evaluation
+    private final PrintWriter output; // Receives one line per file, shared by every worker
+    private final OpeningBook openingBook; // Consulted before searching, or null
+
+    // Per-worker state, reused from one file to the next
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    // Results, updated by every worker
+    private final LongAdder analyzed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Creates an analyzer.
+     *
+     * @param json        True for JSON lines, false for CSV.
+     * @param depth       Search depth of the evaluation.
+     * @param output      Writer receiving the lines.
+     * @param openingBook Book consulted before searching, or null.
+     */
+    public SaveAnalyzer(boolean json, int depth, PrintWriter output, OpeningBook openingBook) {
+        this.json = json;
+        this.depth = depth;
+        this.output = output;
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Analyzes every regular file under a directory.
+     *
+     * @param directory The directory.
+     * @param threads   The number of workers.
+     * @throws IOException          If the directory cannot be listed.
+     * @throws InterruptedException If the thread is interrupted while waiting for the workers.
+     */
+    public void run(Path directory, int threads) throws IOException, InterruptedException {
+        if (!json)
+            output.println(CSV_HEADER);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+        try (Stream<Path> files = Files.walk(directory)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                // Blocks the walk while every permit is taken
+                inFlight.acquire();
+                pool.execute(() -> {
+                    try {
+                        analyze(file);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (UncheckedIOException ex) {
+            // Files.walk reports a directory it cannot read this way
+            throw ex.getCause();
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            output.flush();
+        }
+    }
+
+    // Loads and analyzes one save, then writes its line
+    private void analyze(Path file) {
+        Worker worker = workers.get();
+        String line = null;
+        try {
+            if (worker.loadGame(file))
+                line = worker.analyze(file);
+        } catch (RuntimeException ex) {
+            System.err.println("Error analyzing " + file + ": " + ex);
+        }
+        if (line == null) {
+            failed.increment();
+            line = errorLine(file);
+        } else {
+            analyzed.increment();
+        }
+        synchronized (output) {
+            output.println(line);
+        }
+    }
+
+    // Line of a file that could not be loaded or analyzed
+    private String errorLine(Path file) {
+        if (json)
+            return "{\"file\":" + jsonString(file.toString()) + ",\"status\":\"error\"}";
+        return csvField(file.toString()) + ",error,,,,,,,,,,,";
+    }
+
+    // A model and search engine owned by one pool thread
+    private class Worker {
+        private final ChessModel model = new ChessModel();
+        private final GameEngine engine = new GameEngine(model);
+        private final SearchEngine searchEngine = new SearchEngine(new TranspositionTable(TABLE_MEGABYTES));
+        private final int[] moves = new int[Move.MAX_MOVES];
+        private final int[] bookMoves = new int[Move.MAX_MOVES];
+        private final int[] bookWeights = new int[Move.MAX_MOVES];
+
+        boolean loadGame(Path file) {
+            return model.loadGame(file.toString());
+        }
+
+        // Analyzes the loaded game and formats its line
+        String analyze(Path file) {
+            BitBoard bitBoard = engine.getBitBoard();
+            Team turn = engine.getSideToMove();
+            Team winner = engine.winner();
+            int count = engine.legalMoves(moves);
+            int material = material(bitBoard);
+            boolean sauAttacked = winner == null && bitBoard.isSauAttacked(turn.getCode());
+
+            // Book positions are not searched
+            boolean inBook = count > 0 && openingBook != null
+                    && openingBook.lookup(bitBoard, bookMoves, bookWeights) > 0;
+            String eval = "";
+            String bestMove = "";
+            if (count == 0) {
+                eval = Integer.toString(blueScore(SearchEngine.evaluate(bitBoard), turn));
+            } else if (!inBook) {
+                int move = searchEngine.findBestMove(bitBoard, BUDGET_MILLIS, depth);
+                eval = Integer.toString(blueScore(searchEngine.getBestScore(), turn));
+                if (move != SearchEngine.NO_MOVE)
+                    bestMove = Move.toNotation(move);
+            }
+
+            String bookMove = inBook ? Move.toNotation(bookMoves[0]) : "";
+            String bookWeight = inBook ? Integer.toString(bookWeights[0]) : "";
+            String winnerName = winner == null ? "" : winner.getName();
+            int plies = model.getMoveHistory().size();
+            if (json) {
+                return "{\"file\":" + jsonString(file.toString()) + ",\"status\":\"ok\",\"turn\":\"" + turn.getName()
+                        + "\",\"round\":" + model.getRound() + ",\"plies\":" + plies + ",\"moves\":" + count
+                        + ",\"material\":" + material + ",\"sauAttacked\":" + sauAttacked + ",\"winner\":"
+                        + (winner == null ? "null" : "\"" + winnerName + "\"") + ",\"eval\":"
+                        + (eval.isEmpty() ? "null" : eval) + ",\"bestMove\":"
+                        + (bestMove.isEmpty() ? "null" : jsonString(bestMove)) + ",\"bookMove\":"
+                        + (inBook ? jsonString(bookMove) : "null") + ",\"bookWeight\":" + (inBook ? bookWeight : "null")
+                        + "}";
+            }
+            return csvField(file.toString()) + ",ok," + turn.getName() + "," + model.getRound() + "," + plies + ","
+                    + count + "," + material + "," + sauAttacked + "," + winnerName + "," + eval + ","
+                    + csvField(bestMove) + "," + csvField(bookMove) + "," + bookWeight;
+        }
+    }
+
+    // Turns a score from the side to move's point of view into Blue's
+    private static int blueScore(int score, Team turn) {
+        return turn == Team.RED ? -score : score;
+    }
+
+    // Returns the value of Blue's pieces minus Red's, Saus excluded
+    static int material(BitBoard board) {
+        int balance = 0;
+        for (int type = BitBoard.RAM; type < BitBoard.SAU; type++) {
+            balance += SearchEngine.PIECE_VALUES[type] * (Long.bitCount(board.getPieces(BitBoard.BLUE, type))
+                    - Long.bitCount(board.getPieces(BitBoard.RED, type)));
+        }
+        return balance;
+    }
+
+    // Quotes a CSV field if it contains a separator, a quote or a line break
+    private static String csvField(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0)
+            return text;
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String jsonString(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    // Returns the number of saves analyzed
+    public long getAnalyzed() {
+        return analyzed.sum();
+    }
+
+    // Returns the number of files that could not be loaded or analyzed
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: java SaveAnalyzer <directory> [csv|json] [threads] [depth]"
+                    + " [output file, - for stdout] [opening book, - for none]");
+            System.exit(2);
+        }
+        Path directory = Paths.get(args[0]);
+        boolean json = args.length > 1 && args[1].equalsIgnoreCase("json");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : SearchPolicy.DEFAULT_DEPTH;
+        String filename = args.length > 4 && !args[4].equals("-") ? args[4] : null;
+        OpeningBook openingBook;
+        if (args.length <= 5)
+            openingBook = OpeningBook.openDefault();
+        else
+            openingBook = args[5].equals("-") ? null : new OpeningBook(args[5]);
+
+        BufferedWriter writer = filename == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8);
+        try (PrintWriter output = new PrintWriter(writer); OpeningBook book = openingBook) {
+            SaveAnalyzer analyzer = new SaveAnalyzer(json, depth, output, book);
+            long begin = System.nanoTime();
+            analyzer.run(directory, threads);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            // The summary goes to the error stream so it never mixes with the lines on stdout
+            long files = analyzer.getAnalyzed() + analyzer.getFailed();
+            System.err.printf("%d files (%d failed) on %d threads in %.2f s, %.0f files/s%n", files,
+                    analyzer.getFailed(), threads, seconds, files / seconds);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * Alpha-beta search engine for the computer opponent.
+ * Searches BitBoard positions with negamax and alpha-beta pruning, deepening one ply at a time
+ * until the time budget runs out, and returns the best move of the deepest finished iteration.
+ * Moves are made and unmade on a single board, so the search never copies a position.
+ *
+ * Results are stored in a TranspositionTable that may be shared with other engines, so
+ * positions reached again through Tor/Xor flip-flops and Ram bounces are not searched twice.
+ *
+ * Moves are played with BitBoard.makeMove, so the search follows the Ram turn-around and the
+ * Tor/Xor transformation cadence exactly like the game. Captures are tried first, Sau captures
+ * before everything else, then the most valuable victim with the least valuable attacker (MVV-LVA).
+ */
+public class SearchEngine {
+    // Returned when the side to move has no moves
+    public static final int NO_MOVE = -1;
+
+    // Default time budget per move, leaving headroom under the 100 ms answer limit
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 90;
+
+    // Score of a won game, reduced by the ply so faster wins are preferred
+    static final int WIN_SCORE = 100_000;
+    static final int MAX_PLY = 64;
+
+    // Material value of each piece type (Ram, Biz, Tor, Xor, Sau)
+    static final int[] PIECE_VALUES = { 100, 320, 500, 500, 20_000 };
+
+    // Value of a Ram step towards the far row, Rams that advance put pressure on the enemy
+    private static final int RAM_ADVANCE_BONUS = 4;
+
+    // How many nodes are searched between two clock checks
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    // Size of the table created when none is given
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable table; // Search results, possibly shared between engines
+
+    private final BitBoard board = new BitBoard(); // Searched position, moves are made and unmade on it
+    private final int[][] moves = new int[MAX_PLY][Move.MAX_MOVES]; // One move buffer per ply
+    private final int[][] orderScores = new int[MAX_PLY][Move.MAX_MOVES]; // Ordering keys per ply
+
+    private long deadline; // System.nanoTime() after which the search stops
+    private boolean stopped; // Set once the deadline passed, unwinds the search
+    private volatile boolean stopRequested; // Set by another thread to end the search early
+    private long nodes; // Nodes searched in the last call
+    private int completedDepth; // Deepest finished iteration of the last call
+    private int bestScore; // Score of the best move of the last call
+    private int rootBestMove; // Best root move of the iteration in progress
+
+    public SearchEngine() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * Creates an engine storing its results in the given table.
+     *
+     * @param table The transposition table, may be shared with engines on other threads.
+     */
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Finds the best move for the side to move.
+     *
+     * @param root         The position to search (not modified).
+     * @param budgetMillis Hard time limit for the whole search.
+     * @param maxDepth     Deepest iteration to run.
+     * @return The packed best move, or NO_MOVE if there is none.
+     */
+    public int findBestMove(BitBoard root, long budgetMillis, int maxDepth) {
+        return findBestMove(root, budgetMillis, maxDepth, 0);
+    }
+
+    /**
+     * Finds the best move for the side to move, searching every iteration some plies deeper
+     * than its number. Helper threads of a parallel search use different offsets so they
+     * fill the shared table with different parts of the tree.
+     *
+     * @param root         The position to search (not modified).
+     * @param budgetMillis Hard time limit for the whole search.
+     * @param maxDepth     Deepest iteration to run.
+     * @param depthOffset  Extra plies added to every iteration.
+     * @return The packed best move, or NO_MOVE if there is none.
+     */
+    public int findBestMove(BitBoard root, long budgetMillis, int maxDepth, int depthOffset) {
+        deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        stopped = false;
+        nodes = 0;
+        completedDepth = 0;
+        bestScore = 0;
+        board.copyFrom(root);
+
+        if (root.isGameOver())
+            return NO_MOVE;
+        int count = root.generateMoves(root.getSideToMove(), moves[0], 0);
+        if (count == 0)
+            return NO_MOVE;
+
+        // Always have an answer, even if the first iteration cannot finish in time
+        orderMoves(0, count, NO_MOVE);
+        int bestMove = moves[0][0];
+
+        maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+        for (int depth = 1 + depthOffset; depth <= maxDepth; depth++) {
+            rootBestMove = NO_MOVE;
+            int score = negamax(0, depth, -WIN_SCORE - 1, WIN_SCORE + 1, bestMove);
+            if (stopped)
+                break;
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (Math.abs(score) >= WIN_SCORE - MAX_PLY)
+                break; // A forced win or loss was found, deeper iterations cannot change it
+        }
+        return bestMove;
+    }
+
+    /**
+     * Finds the best move for the side to move within the default time budget.
+     *
+     * @param root The position to search (not modified).
+     * @return The packed best move, or NO_MOVE if there is none.
+     */
+    public int findBestMove(BitBoard root) {
+        return findBestMove(root, DEFAULT_TIME_BUDGET_MILLIS, MAX_PLY);
+    }
+
+    // Negamax with alpha-beta pruning, returns the score from the side to move's point of view
+    private int negamax(int ply, int depth, int alpha, int beta, int hashMove) {
+        if ((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && (stopRequested || System.nanoTime() > deadline))
+            stopped = true;
+        if (stopped)
+            return 0;
+
+        // The previous move captured a Sau: the side to move has lost
+        if (board.isGameOver())
+            return -WIN_SCORE + ply;
+        if (depth == 0)
+            return evaluate(board);
+
+        // Reuses a stored result when it was searched deep enough, and its move for ordering
+        long key = board.getKey();
+        long entry = table.probe(key);
+        if (entry != 0) {
+            int entryMove = TranspositionTable.getMove(entry);
+            if (hashMove == NO_MOVE)
+                hashMove = entryMove;
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha))
+                    return score;
+            }
+        }
+
+        int[] buffer = moves[ply];
+        int count = board.generateMoves(board.getSideToMove(), buffer, 0);
+        if (count == 0)
+            return 0; // A side that cannot move is stuck, score it as a draw
+        orderMoves(ply, count, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -WIN_SCORE - 1;
+        int bestMove = NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            long undo = board.makeMove(buffer[i]);
+            int score = -negamax(ply + 1, depth - 1, -beta, -alpha, NO_MOVE);
+            board.unmakeMove(buffer[i], undo);
+            if (stopped)
+                return 0;
+            if (score > best) {
+                best = score;
+                bestMove = buffer[i];
+                if (ply == 0)
+                    rootBestMove = buffer[i];
+            }
+            if (score > alpha)
+                alpha = score;
+            if (alpha >= beta)
+                break;
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    // Win scores are stored relative to the position instead of the root, so they stay
+    // correct when the position is reached at another ply
+    private static int scoreToTable(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_PLY)
+            return score + ply;
+        if (score <= -WIN_SCORE + MAX_PLY)
+            return score - ply;
+        return score;
+    }
+
+    // Converts a stored score back to a score relative to the root
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_PLY)
+            return score - ply;
+        if (score <= -WIN_SCORE + MAX_PLY)
+            return score + ply;
+        return score;
+    }
+
+    // Sorts the moves of a ply: hash move, Sau captures, MVV-LVA captures, then quiet moves
+    private void orderMoves(int ply, int count, int hashMove) {
+        int[] buffer = moves[ply];
+        int[] scores = orderScores[ply];
+        for (int i = 0; i < count; i++)
+            scores[i] = orderScore(buffer[i], hashMove);
+
+        // Insertion sort, move lists are short
+        for (int i = 1; i < count; i++) {
+            int move = buffer[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                buffer[j + 1] = buffer[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            buffer[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    // Returns the ordering key of a move, higher is searched first
+    static int orderScore(int move, int hashMove) {
+        if (move == hashMove)
+            return Integer.MAX_VALUE;
+        int captured = Move.getCapturedType(move);
+        if (captured == Move.NO_CAPTURE)
+            return 0;
+        if (captured == BitBoard.SAU)
+            return Integer.MAX_VALUE - 1;
+        return PIECE_VALUES[captured] * 16 - PIECE_VALUES[Move.getPieceType(move)] / 16;
+    }
+
+    /**
+     * Static evaluation: material balance plus a small bonus for advanced Rams,
+     * from the point of view of the side to move.
+     *
+     * @param board The position to evaluate.
+     * @return The score in centi-Rams.
+     */
+    public static int evaluate(BitBoard board) {
+        int score = 0;
+        for (int type = 0; type < BitBoard.PIECE_TYPES; type++) {
+            score += PIECE_VALUES[type] * (Long.bitCount(board.getPieces(BitBoard.BLUE, type))
+                    - Long.bitCount(board.getPieces(BitBoard.RED, type)));
+        }
+
+        // Blue starts at the bottom and advances towards row 0, Red the other way
+        long blueRams = board.getPieces(BitBoard.BLUE, BitBoard.RAM);
+        while (blueRams != 0) {
+            int square = Long.numberOfTrailingZeros(blueRams);
+            blueRams &= blueRams - 1;
+            score += RAM_ADVANCE_BONUS * (ChessBoard.ROWS - 1 - Position.of(square).getRow());
+        }
+        long redRams = board.getPieces(BitBoard.RED, BitBoard.RAM);
+        while (redRams != 0) {
+            int square = Long.numberOfTrailingZeros(redRams);
+            redRams &= redRams - 1;
+            score -= RAM_ADVANCE_BONUS * Position.of(square).getRow();
+        }
+        return board.getSideToMove() == BitBoard.BLUE ? score : -score;
+    }
+
+    // Asks a search running on another thread to stop at its next clock check
+    public void stop() {
+        stopRequested = true;
+    }
+
+    // Allows searching again after stop()
+    public void clearStop() {
+        stopRequested = false;
+    }
+
+    // Returns the number of nodes searched by the last call
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Returns the deepest iteration finished by the last call
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    // Returns the transposition table used by the engine
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    // Returns the score of the best move of the last call
+    public int getBestScore() {
+        return bestScore;
+    }
+}
@@ -0,0 +1,24 @@
+import java.util.SplittableRandom;
+
+// Self-play policy playing the best move of a fixed-depth alpha-beta search
+public class SearchPolicy implements MovePolicy {
+    public static final int DEFAULT_DEPTH = 2;
+
+    // Fixed-depth searches are not meant to run out of time
+    private static final long BUDGET_MILLIS = 60_000;
+    // Each worker thread has its own engine, kept small so many workers fit in memory
+    private static final int TABLE_MEGABYTES = 4;
+
+    private final SearchEngine searchEngine = new SearchEngine(new TranspositionTable(TABLE_MEGABYTES));
+    private final int depth; // Search depth in plies
+
+    public SearchPolicy(int depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    public int chooseMove(GameEngine engine, int[] moves, int count, SplittableRandom random) {
+        int move = searchEngine.findBestMove(engine.getBitBoard(), BUDGET_MILLIS, depth);
+        return move == SearchEngine.NO_MOVE ? moves[random.nextInt(count)] : move;
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Command-line self-play runner: plays many games between two move policies on a fork-join pool.
+ * Games are independent (each has its own GameEngine and random numbers, seeded from the game
+ * index so a run can be reproduced) and workers share nothing but the result counters and the
+ * output file, which they append to one batch of games at a time.
+ *
+ * Usage: java SelfPlay [games] [blue policy] [red policy] [output file, - for none] [threads] [max plies]
+ *        [game archive]
+ * Policies are "random", "greedy" or "search[:depth]" (see MovePolicy). When a game archive is
+ * given, every finished game is appended to it (see GameArchive), in completion order.
+ *
+ * Output file: the magic "KWSP", a version byte, then one 10-byte big-endian record per game
+ * in completion order:
+ * - int: game index
+ * - short: number of plies played
+ * - short: ply (1-based) of the Sau capture, -1 if no Sau was captured
+ * - byte: winner (0 none, 1 Blue, 2 Red)
+ * - byte: how the game ended (END_SAU_CAPTURED, END_NO_MOVES or END_PLY_LIMIT)
+ */
+public class SelfPlay {
+    // How a game ended
+    public static final int END_SAU_CAPTURED = 0;
+    public static final int END_NO_MOVES = 1;
+    public static final int END_PLY_LIMIT = 2;
+
+    public static final int RECORD_SIZE = 10;
+    private static final byte[] MAGIC = { 'K', 'W', 'S', 'P' };
+    private static final int VERSION = 1;
+
+    // Both sides start with random moves so deterministic policies do not replay one game forever
+    private static final int RANDOM_OPENING_PLIES = 2;
+    // Games per fork-join leaf, large enough to make task and output overhead negligible
+    private static final int GAMES_PER_TASK = 256;
+    private static final long SEED = 0x5E1F_91A7L;
+
+    private final String bluePolicy; // Policy names, each worker creates its own instances
+    private final String redPolicy;
+    private final int maxPlies;
+    private final OutputStream output; // Receives the game records, or null
+    private final GameArchiveWriter archive; // Receives the finished games, or null
+
+    // Results, updated by every worker
+    private final LongAdder plies = new LongAdder();
+    private final LongAdder[] wins = { new LongAdder(), new LongAdder(), new LongAdder() };
+
+    /**
+     * Creates a runner.
+     *
+     * @param bluePolicy Policy name of Blue.
+     * @param redPolicy  Policy name of Red.
+     * @param maxPlies   Plies after which a game is stopped without a winner.
+     * @param output     Stream receiving the game records, or null.
+     * @param archive    Archive receiving the finished games, or null.
+     */
+    public SelfPlay(String bluePolicy, String redPolicy, int maxPlies, OutputStream output,
+            GameArchiveWriter archive) {
+        this.bluePolicy = bluePolicy;
+        this.redPolicy = redPolicy;
+        this.maxPlies = maxPlies;
+        this.output = output;
+        this.archive = archive;
+        // Fails early on an unknown policy name instead of inside the pool
+        MovePolicy.create(bluePolicy);
+        MovePolicy.create(redPolicy);
+    }
+
+    /**
+     * Plays games on a pool.
+     *
+     * @param games The number of games.
+     * @param pool  The pool running the games.
+     * @throws IOException If the records cannot be written.
+     */
+    public void run(int games, ForkJoinPool pool) throws IOException {
+        if (output != null) {
+            output.write(MAGIC);
+            output.write(VERSION);
+        }
+        pool.invoke(new GamesTask(0, games));
+        if (output != null)
+            output.flush();
+    }
+
+    // Plays a range of games, splitting it in halves until it is small enough
+    private class GamesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start; // First game index
+        private final int end; // Game index after the last
+
+        GamesTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > GAMES_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new GamesTask(start, middle), new GamesTask(middle, end));
+                return;
+            }
+
+            MovePolicy blue = MovePolicy.create(bluePolicy);
+            MovePolicy red = MovePolicy.create(redPolicy);
+            int[] moves = new int[Move.MAX_MOVES];
+            ByteArrayOutputStream records = new ByteArrayOutputStream((end - start) * RECORD_SIZE);
+            DataOutputStream recordOutput = new DataOutputStream(records);
+            try {
+                for (int game = start; game < end; game++)
+                    playGame(game, blue, red, moves, recordOutput);
+                if (output != null) {
+                    synchronized (output) {
+                        records.writeTo(output);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    // Plays one game and writes its record
+    private void playGame(int game, MovePolicy blue, MovePolicy red, int[] moves, DataOutputStream records)
+            throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED + game);
+        GameEngine engine = new GameEngine();
+        int ply = 0;
+        int end = END_PLY_LIMIT;
+        while (ply < maxPlies) {
+            int count = engine.legalMoves(moves);
+            if (count == 0) {
+                end = engine.winner() == null ? END_NO_MOVES : END_SAU_CAPTURED;
+                break;
+            }
+            MovePolicy policy = engine.getSideToMove() == Team.BLUE ? blue : red;
+            int move = ply < RANDOM_OPENING_PLIES ? moves[random.nextInt(count)]
+                    : policy.chooseMove(engine, moves, count, random);
+            engine.play(move);
+            ply++;
+        }
+        // The last move may have captured a Sau right at the ply limit
+        if (end == END_PLY_LIMIT && engine.winner() != null)
+            end = END_SAU_CAPTURED;
+
+        Team winner = engine.winner();
+        int winnerCode = winner == null ? 0 : winner.getCode() + 1;
+        plies.add(ply);
+        wins[winnerCode].increment();
+
+        if (archive != null)
+            archive.append(engine.snapshot(), ply, winner);
+        if (output != null) {
+            records.writeInt(game);
+            records.writeShort(ply);
+            records.writeShort(end == END_SAU_CAPTURED ? ply : -1);
+            records.writeByte(winnerCode);
+            records.writeByte(end);
+        }
+    }
+
+    // Returns the number of plies played so far
+    public long getPlies() {
+        return plies.sum();
+    }
+
+    // Returns the number of games won by a winner code (0 none, 1 Blue, 2 Red)
+    public long getWins(int winnerCode) {
+        return wins[winnerCode].sum();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        String bluePolicy = args.length > 1 ? args[1] : "random";
+        String redPolicy = args.length > 2 ? args[2] : "random";
+        String filename = args.length > 3 && !args[3].equals("-") ? args[3] : null;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int maxPlies = args.length > 5 ? Integer.parseInt(args[5]) : 400;
+        String archiveName = args.length > 6 ? args[6] : null;
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (OutputStream output = filename == null ? null
+                : new BufferedOutputStream(new FileOutputStream(filename), 1 << 16);
+                GameArchiveWriter archive = archiveName == null ? null : new GameArchiveWriter(archiveName)) {
+            SelfPlay selfPlay = new SelfPlay(bluePolicy, redPolicy, maxPlies, output, archive);
+            long begin = System.nanoTime();
+            selfPlay.run(games, pool);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            long plies = selfPlay.getPlies();
+            System.out.printf("%d games (%s vs %s) on %d threads in %.2f s%n", games, bluePolicy, redPolicy,
+                    threads, seconds);
+            System.out.printf("%.0f games/s, %.0f plies/s, %.1f plies/game%n", games / seconds, plies / seconds,
+                    (double) plies / games);
+            System.out.printf("Blue %d, Red %d, no winner %d%n", selfPlay.getWins(1), selfPlay.getWins(2),
+                    selfPlay.getWins(0));
+            if (archive != null)
+                System.out.printf("%d games in %s%n", archive.size(), archiveName);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays the game's sound effects from clips opened once at startup.
+ * Each effect's WAV file is decoded once and loaded into a small pool of Clips, which are rewound
+ * and reused in turn, so playing a sound opens no file and no audio line. Sounds are started on a
+ * single background thread so the event thread never waits for the mixer.
+ * An effect whose file is missing or that cannot get an audio line is skipped, the reason is
+ * logged once at startup.
+ */
+public class SoundPlayer {
+    // Sound effects
+    public static final int PIECE_SELECT = 0;
+    public static final int PIECE_MOVE = 1;
+    public static final int PIECE_TAKEN_OUT = 2;
+
+    private static final String[] FILES = { "Audio/Piece_Select.wav", "Audio/Piece_Move.wav",
+            "Audio/Piece_Taken_Out.wav" };
+
+    // Clips per effect, enough for the same sound to overlap itself in quick succession
+    private static final int CLIPS_PER_EFFECT = 3;
+
+    private final Clip[][] clips = new Clip[FILES.length][]; // Clip pool per effect, null if unavailable
+    private final int[] nextClip = new int[FILES.length]; // Pool index to play next, per effect
+    private final ExecutorService executor;
+
+    public SoundPlayer() {
+        for (int effect = 0; effect < FILES.length; effect++)
+            clips[effect] = loadClips(FILES[effect]);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sound-player");
+            thread.setDaemon(true); // Never keeps the application alive
+            return thread;
+        });
+    }
+
+    /**
+     * Plays a sound effect without waiting for it.
+     *
+     * @param effect PIECE_SELECT, PIECE_MOVE or PIECE_TAKEN_OUT.
+     */
+    public void play(int effect) {
+        if (clips[effect] == null || executor.isShutdown())
+            return;
+        executor.execute(() -> {
+            Clip[] pool = clips[effect];
+            Clip clip = pool[nextClip[effect]];
+            nextClip[effect] = (nextClip[effect] + 1) % pool.length;
+            clip.stop(); // The oldest playback of this effect is cut short if it is still running
+            clip.setFramePosition(0);
+            clip.start();
+        });
+    }
+
+    // Stops the playback thread and releases every audio line
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Clip[] pool : clips) {
+            if (pool == null)
+                continue;
+            for (Clip clip : pool)
+                clip.close();
+        }
+    }
+
+    // Decodes a WAV file and opens a pool of clips on its samples, or returns null on failure
+    private static Clip[] loadClips(String filename) {
+        File file = new File(filename);
+        if (!file.exists()) {
+            System.err.println("Audio file not found: " + filename);
+            return null;
+        }
+
+        Clip[] pool = new Clip[CLIPS_PER_EFFECT];
+        try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(file)) {
+            AudioFormat format = audioStream.getFormat();
+            ByteArrayOutputStream samples = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = audioStream.read(buffer)) > 0)
+                samples.write(buffer, 0, read);
+            byte[] data = samples.toByteArray();
+
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = AudioSystem.getClip();
+                pool[i].open(format, data, 0, data.length);
+            }
+            return pool;
+        } catch (IOException | LineUnavailableException | UnsupportedAudioFileException
+                | IllegalArgumentException ex) {
+            // No sound device, or the device cannot play this format
+            System.err.println("Error loading audio " + filename + ": " + ex.getMessage());
+            for (Clip clip : pool) {
+                if (clip != null)
+                    clip.close();
+            }
+            return null;
+        }
+    }
+}
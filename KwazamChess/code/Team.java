@@ -0,0 +1,55 @@
+/**
+ * The two teams. The model compares teams by identity and indexes tables by their code, the
+ * name ("Blue" or "Red") is only used where text is shown or written: the view, the icon file
+ * names and the save files.
+ */
+public enum Team {
+    BLUE("Blue"), // Team code BitBoard.BLUE, moves first
+    RED("Red"); // Team code BitBoard.RED
+
+    private final String name;
+
+    Team(String name) {
+        this.name = name;
+    }
+
+    // Returns the team code used by BitBoard and Zobrist (BitBoard.BLUE or BitBoard.RED)
+    public int getCode() {
+        return ordinal();
+    }
+
+    // Returns the name shown to the players and written to save files ("Blue" or "Red")
+    public String getName() {
+        return name;
+    }
+
+    // Returns the other team
+    public Team opponent() {
+        return this == BLUE ? RED : BLUE;
+    }
+
+    // Returns the team of a team code
+    public static Team fromCode(int code) {
+        return code == BitBoard.RED ? RED : BLUE;
+    }
+
+    /**
+     * Returns the team of a name, as read from a save file.
+     *
+     * @param name "Blue" or "Red".
+     * @return The team.
+     * @throws IllegalArgumentException If the name is not a team name.
+     */
+    public static Team fromName(String name) {
+        for (Team team : values()) {
+            if (team.name.equals(name))
+                return team;
+        }
+        throw new IllegalArgumentException("Invalid team: " + name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
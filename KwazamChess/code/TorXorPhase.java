@@ -0,0 +1,32 @@
+/**
+ * Which way round Tor and Xor currently are. Every 2 rounds all Tor pieces become Xor pieces and
+ * vice versa; instead of replacing the pieces, the board toggles its single phase object, which
+ * every Tor and Xor piece reads to know its current type, moves and icon.
+ */
+public class TorXorPhase {
+    private boolean swapped; // True while every piece created as a Tor is a Xor and vice versa
+
+    // Returns true while Tor and Xor are swapped from the way they were created
+    public boolean isSwapped() {
+        return swapped;
+    }
+
+    // Transforms every Tor into a Xor and vice versa
+    public void toggle() {
+        swapped = !swapped;
+    }
+
+    /**
+     * Returns the current type of a piece from the type it was created with.
+     * Since the swap is its own inverse, this also returns the type a piece must be created with
+     * to currently have the given type.
+     *
+     * @param type A type code (see BitBoard).
+     * @return The current type code, Tor and Xor are exchanged while swapped.
+     */
+    public int currentType(int type) {
+        if (swapped && (type == BitBoard.TOR || type == BitBoard.XOR))
+            return type == BitBoard.TOR ? BitBoard.XOR : BitBoard.TOR;
+        return type;
+    }
+}
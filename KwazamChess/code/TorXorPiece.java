@@ -0,0 +1,68 @@
+/**
+ * Parent class of Tor and Xor (inherits Piece). A Tor moves any distance along its row or
+ * column and a Xor any distance diagonally, and every 2 rounds all of them transform into each
+ * other. The current type of a piece, and so its moves and icon, comes from the board's shared
+ * TorXorPhase, so the transformation toggles one flag instead of replacing the pieces.
+ */
+public abstract class TorXorPiece extends Piece {
+    private final TorXorPhase phase; // Phase shared by every Tor and Xor of the board
+    private final int createdType; // BitBoard.TOR or BitBoard.XOR, the type before any transformation
+    private final String torIconPath;
+    private final String xorIconPath;
+
+    /**
+     * Constructor for a Tor or Xor piece.
+     *
+     * @param position    The initial position of the piece.
+     * @param team        The team to which the piece belongs.
+     * @param createdType The type of the piece in the initial phase (BitBoard.TOR or BitBoard.XOR).
+     * @param phase       The phase of the board the piece is on.
+     */
+    protected TorXorPiece(Position position, Team team, int createdType, TorXorPhase phase) {
+        super(position, team, "src/" + team.getName() + "_" + PieceType.fromCode(createdType).getName() + ".png");
+        this.phase = phase;
+        this.createdType = createdType;
+        this.torIconPath = "src/" + team.getName() + "_Tor.png";
+        this.xorIconPath = "src/" + team.getName() + "_Xor.png";
+    }
+
+    /**
+     * Writes all the valid moves of the piece as it currently is (Tor or Xor).
+     *
+     * @param board The 2D array representing the game board with all pieces.
+     * @param moves The caller's buffer receiving the packed moves.
+     * @param count The number of moves already in the buffer.
+     * @return The new number of moves in the buffer.
+     */
+    @Override
+    public int generateMoves(Piece[][] board, int[] moves, int count) {
+        int square = position.getIndex();
+
+        // Iterate through the four directions of the current type.
+        int[] directions = getPieceType() == BitBoard.TOR ? MoveTables.TOR_DIRECTIONS : MoveTables.XOR_DIRECTIONS;
+        for (int dir : directions) {
+            // Walk the precomputed ray, which ends at the edge of the board, until blocked.
+            for (int target : MoveTables.RAYS[dir][square]) {
+                // Add the move (addMove skips pieces of the same team), an occupied cell ends the ray.
+                count = addMove(board, moves, count, target, 0);
+                Position targetPosition = Position.of(target);
+                if (board[targetPosition.getRow()][targetPosition.getColumn()] != null) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Returns the current piece type code (BitBoard.TOR or BitBoard.XOR)
+    @Override
+    public int getPieceType() {
+        return phase.currentType(createdType);
+    }
+
+    // Returns the icon of the current piece type
+    @Override
+    public String getIconPath() {
+        return getPieceType() == BitBoard.TOR ? torIconPath : xorIconPath;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Fixed-size transposition table shared by any number of search threads without locks.
+ * Each entry takes two longs of a single long[]: the position key XORed with the data, and the data.
+ * A reader accepts an entry only if both halves XOR back to the key it is looking for, so an entry
+ * torn by two threads writing at once is simply seen as a miss (Hyatt's lockless hashing).
+ *
+ * Data layout (least significant bit first):
+ * - bits 0-23: best move (packed, see Move), all ones when there is none
+ * - bits 24-43: score, signed
+ * - bits 44-51: depth
+ * - bits 52-53: bound type
+ */
+public class TranspositionTable {
+    // Bound types
+    public static final int EXACT = 1; // The score is exact
+    public static final int LOWER = 2; // The search failed high, the score is a lower bound
+    public static final int UPPER = 3; // The search failed low, the score is an upper bound
+
+    private static final int BYTES_PER_ENTRY = 16;
+    private static final long MOVE_MASK = 0xFFFFFFL;
+    private static final int SCORE_SHIFT = 24;
+    private static final int SCORE_BITS = 20;
+    private static final int DEPTH_SHIFT = 44;
+    private static final int BOUND_SHIFT = 52;
+
+    private final long[] table;
+    private final int indexMask; // Number of entries - 1 (the entry count is a power of two)
+
+    /**
+     * Creates a table using at most the given amount of memory.
+     *
+     * @param megabytes Size of the table in MB (at least 1).
+     */
+    public TranspositionTable(int megabytes) {
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        // Largest power of two entry count that fits, capped so the array stays addressable
+        long entries = Long.highestOneBit(Math.min(bytes / BYTES_PER_ENTRY, 1L << 29));
+        table = new long[(int) entries * 2];
+        indexMask = (int) entries - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key Zobrist key of the position.
+     * @return The packed entry data, or 0 if the position is not stored.
+     */
+    public long probe(long key) {
+        int index = ((int) key & indexMask) << 1;
+        long data = table[index + 1];
+        if ((table[index] ^ data) != key || data == 0)
+            return 0;
+        return data;
+    }
+
+    /**
+     * Stores a search result. An entry for another position is always replaced,
+     * an entry for the same position only by a search at least as deep.
+     *
+     * @param key   Zobrist key of the position.
+     * @param move  Best move found, or SearchEngine.NO_MOVE.
+     * @param score Score of the position.
+     * @param depth Remaining depth of the search.
+     * @param bound EXACT, LOWER or UPPER.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = ((int) key & indexMask) << 1;
+        long oldData = table[index + 1];
+        if ((table[index] ^ oldData) == key && oldData != 0 && depth < getDepth(oldData))
+            return;
+        long data = (move & MOVE_MASK)
+                | ((score & ((1L << SCORE_BITS) - 1)) << SCORE_SHIFT)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    // Removes every entry
+    public void clear() {
+        java.util.Arrays.fill(table, 0);
+    }
+
+    // Returns the number of entries the table can hold
+    public int capacity() {
+        return indexMask + 1;
+    }
+
+    // Returns the best move of an entry, or SearchEngine.NO_MOVE
+    public static int getMove(long data) {
+        int move = (int) (data & MOVE_MASK);
+        return move == MOVE_MASK ? SearchEngine.NO_MOVE : move;
+    }
+
+    // Returns the score of an entry
+    public static int getScore(long data) {
+        return (int) (data << (64 - SCORE_SHIFT - SCORE_BITS) >> (64 - SCORE_BITS));
+    }
+
+    // Returns the depth of an entry
+    public static int getDepth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    // Returns the bound type of an entry
+    public static int getBound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for Kwazam positions.
+ * A position key is the XOR of one random 64-bit number per (team, piece type, square), one per
+ * square holding a Ram heading towards the last row, one for Red to move and one per round value
+ * (the Tor/Xor transformation phase). BitBoard keeps its key up to date with O(1) XOR work per
+ * change instead of rehashing the board.
+ *
+ * The numbers come from a fixed seed so keys stay the same between runs and can be stored on disk.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x4B57415A414DL; // "KWAZAM"
+
+    // PIECES[team][type][square]
+    static final long[][][] PIECES = new long[2][BitBoard.PIECE_TYPES][BitBoard.SQUARES];
+
+    // RAM_FORWARD[square] is XORed in while the Ram on the square moves towards the last row
+    static final long[] RAM_FORWARD = new long[BitBoard.SQUARES];
+
+    // XORed in while Red is to move
+    static final long RED_TO_MOVE;
+
+    // ROUND[round] for the number of Red moves since the last Tor/Xor transformation
+    static final long[] ROUND = new long[3];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int team = 0; team < 2; team++) {
+            for (int type = 0; type < BitBoard.PIECE_TYPES; type++) {
+                for (int square = 0; square < BitBoard.SQUARES; square++)
+                    PIECES[team][type][square] = random.nextLong();
+            }
+        }
+        for (int square = 0; square < BitBoard.SQUARES; square++)
+            RAM_FORWARD[square] = random.nextLong();
+        RED_TO_MOVE = random.nextLong();
+        // Round 0 contributes nothing so a fresh board only hashes its pieces
+        for (int round = 1; round < ROUND.length; round++)
+            ROUND[round] = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    // Returns the key contribution of the side to move
+    static long side(int team) {
+        return team == BitBoard.RED ? RED_TO_MOVE : 0;
+    }
+
+    // Returns the key contribution of the round counter
+    static long round(int round) {
+        return ROUND[round];
+    }
+
+    // Computes the key of a bitboard from scratch (used to check the incremental key)
+    public static long computeKey(BitBoard board) {
+        long key = side(board.getSideToMove()) ^ round(board.getRound());
+        for (int team = 0; team < 2; team++) {
+            for (int type = 0; type < BitBoard.PIECE_TYPES; type++) {
+                long pieces = board.getPieces(team, type);
+                while (pieces != 0) {
+                    key ^= PIECES[team][type][Long.numberOfTrailingZeros(pieces)];
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        long forward = board.getRamForwardBoard();
+        while (forward != 0) {
+            key ^= RAM_FORWARD[Long.numberOfTrailingZeros(forward)];
+            forward &= forward - 1;
+        }
+        return key;
+    }
+}